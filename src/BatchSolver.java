@@ -0,0 +1,176 @@
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Headless mode that solves a stream of puzzles and writes one solution per puzzle.
+ * Puzzles are read with a PuzzleReader and solutions are written with a PuzzleWriter, so a corpus
+ * of any length is processed in constant memory. A throughput and latency report goes to stderr.
+ * The backtracking engine runs on one reused SolverWorkspace, so solving itself allocates nothing.
+ * An optional SolutionCache answers puzzles equivalent to ones already solved.
+ */
+public class BatchSolver {
+    private final int size;
+    private final SolverEngine engine;
+    private final LatencyHistogram latencies;
+    private final SolverWorkspace workspace;
+    private final SolutionCache cache;
+    private long solved;
+    private long unsolvable;
+    private long gcCountAtStart;
+
+    /**
+     * Constructs a new BatchSolver object for puzzles of a given size.
+     *
+     * @param size   the size of the Sudoku grid (e.g., 9 for standard Sudoku)
+     * @param engine the engine used to solve each puzzle
+     * @param cache  the cache of solutions to consult first, or null to solve every puzzle
+     */
+    public BatchSolver(int size, SolverEngine engine, SolutionCache cache) {
+        this.size = size;
+        this.engine = engine;
+        this.latencies = new LatencyHistogram();
+        this.workspace = engine == SolverEngine.BACKTRACKING ? new SolverWorkspace(size) : null;
+        this.cache = cache;
+    }
+
+    /**
+     * Runs batch mode from command-line arguments:
+     * {@code [--size N] [--solver backtracking|dlx|parallel] [--cache CAPACITY] [input|-] [output]}.
+     * The input defaults to stdin and the output to stdout.
+     *
+     * @param args the arguments following {@code --batch}
+     */
+    public static void run(String[] args) {
+        int size = 9;
+        SolverEngine engine = SolverEngine.BACKTRACKING;
+        int cacheCapacity = 0;
+        String input = "-";
+        String output = "-";
+        int positional = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--size" -> size = Integer.parseInt(args[++i]);
+                    case "--solver" -> engine = SolverEngine.fromName(args[++i]);
+                    case "--cache" -> cacheCapacity = Integer.parseInt(args[++i]);
+                    default -> {
+                        if (positional == 0) {
+                            input = args[i];
+                        } else {
+                            output = args[i];
+                        }
+                        positional++;
+                    }
+                }
+            }
+            SudokuBoard.boxSizeFor(size);
+            if (cacheCapacity < 0) {
+                throw new IllegalArgumentException();
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Usage: java Main --batch [--size N] [--solver backtracking|dlx|parallel] [--cache CAPACITY] [input|-] [output]");
+            return;
+        }
+
+        BatchSolver batch = new BatchSolver(size, engine, cacheCapacity > 0 ? new SolutionCache(cacheCapacity) : null);
+        try (ReadableByteChannel in = input.equals("-")
+                ? Channels.newChannel(System.in) : FileChannel.open(Path.of(input), StandardOpenOption.READ)) {
+            WritableByteChannel out = output.equals("-")
+                    ? Channels.newChannel(System.out)
+                    : FileChannel.open(Path.of(output), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                PuzzleWriter writer = new PuzzleWriter(out, size);
+                long start = System.nanoTime();
+                batch.solveAll(new PuzzleReader(in, size), writer);
+                writer.flush();
+                batch.printReport(System.nanoTime() - start);
+            } finally {
+                if (!output.equals("-")) {
+                    out.close(); // Leave stdout open
+                }
+            }
+        } catch (NoSuchFileException e) {
+            System.err.println("Error: File not found: " + e.getFile());
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Solves every puzzle from a reader and writes each solution, or a no-solution marker, to a writer.
+     *
+     * @param reader the source of puzzles
+     * @param writer the destination of solutions
+     * @throws IOException if reading or writing fails
+     */
+    public void solveAll(PuzzleReader reader, PuzzleWriter writer) throws IOException {
+        gcCountAtStart = gcCount();
+        while (reader.next()) {
+            int[] cells = reader.getCells();
+            long start = System.nanoTime();
+            boolean solvedPuzzle = cache != null ? cache.solve(cells, cells, this::solveUncached) : solveUncached(cells, cells);
+            latencies.record(System.nanoTime() - start);
+            if (!solvedPuzzle) {
+                unsolvable++;
+                writer.writeNoSolution();
+                continue;
+            }
+            solved++;
+            writer.write(cells);
+        }
+    }
+
+    /**
+     * Solves a puzzle with the workspace or, for the other engines, with a PuzzleSolver.
+     *
+     * @param puzzle   the cell values, with 0 for empty cells
+     * @param solution the array that receives the solved cells
+     * @return true if the puzzle was solved, false otherwise
+     */
+    private boolean solveUncached(int[] puzzle, int[] solution) {
+        return workspace != null ? workspace.solve(puzzle, solution) : engine.solve(puzzle, solution);
+    }
+
+    /**
+     * Prints the number of puzzles, throughput and latency percentiles to stderr.
+     *
+     * @param elapsedNanos the wall-clock time of the whole batch, including I/O
+     */
+    public void printReport(long elapsedNanos) {
+        long puzzles = solved + unsolvable;
+        double seconds = elapsedNanos / 1e9;
+        System.err.printf("Puzzles: %d (solved %d, no solution %d) in %.3f s%n", puzzles, solved, unsolvable, seconds);
+        System.err.printf("Throughput: %.0f puzzles/sec%n", seconds > 0 ? puzzles / seconds : 0.0);
+        System.err.printf("Solve latency: p50 %s, p99 %s, max %s%n",
+                LatencyHistogram.formatNanos(latencies.getPercentile(50)),
+                LatencyHistogram.formatNanos(latencies.getPercentile(99)),
+                LatencyHistogram.formatNanos(latencies.getMax()));
+        if (cache != null) {
+            System.err.printf("Cache: %d hits, %d misses, %d uncacheable (hit rate %.1f%%)%n", cache.getHits(),
+                    cache.getMisses(), cache.getUncacheable(), 100 * cache.getHitRate());
+        }
+        System.err.printf("GC: %d collections%n", gcCount() - gcCountAtStart);
+    }
+
+    /**
+     * Returns the total number of garbage collections so far.
+     *
+     * @return the collection count
+     */
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+}
@@ -0,0 +1,209 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the empty cells of a Sudoku grid bucketed by their number of remaining candidates,
+ * so a search can branch on the most constrained cell without rescanning the board.
+ * Counts and degrees (the number of empty peers) are updated incrementally on place and undo,
+ * which must happen in stack order as they do in a depth-first search.
+ */
+public class CandidateCountIndex {
+    private static final int NONE = -1;
+
+    /**
+     * The value returned by {@link #selectCell()} when no empty cell remains.
+     */
+    public static final int SOLVED = -1;
+
+    /**
+     * The value returned by {@link #selectCell()} when an empty cell has no candidates left.
+     */
+    public static final int DEAD_END = -2;
+
+    private static final AtomicReferenceArray<int[][]> PEER_TABLES = new AtomicReferenceArray<>(Long.SIZE + 1);
+
+    private final int size;
+    private final CandidateMasks masks;
+    private final boolean[] empty;
+    private final int[] count;
+    private final int[] degree;
+    private final int[][] peers;
+    private final int[] bucketHead;
+    private final int[] next;
+    private final int[] prev;
+
+    /**
+     * Constructs a new CandidateCountIndex object for the empty cells of a given grid.
+     *
+     * @param grid  the Sudoku grid, where 0 marks an empty cell
+     * @param masks the candidate masks of the grid
+     */
+    public CandidateCountIndex(int[][] grid, CandidateMasks masks) {
+        this.size = grid.length;
+        this.masks = masks;
+        int cells = size * size;
+        this.empty = new boolean[cells];
+        this.count = new int[cells];
+        this.degree = new int[cells];
+        this.bucketHead = new int[size + 1];
+        this.next = new int[cells];
+        this.prev = new int[cells];
+        Arrays.fill(bucketHead, NONE);
+
+        this.peers = peersFor(size, masks.getBoxSize());
+        for (int cell = 0; cell < cells; cell++) {
+            empty[cell] = grid[cell / size][cell % size] == 0;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (empty[cell]) {
+                count[cell] = Long.bitCount(masks.getCandidates(cell / size, cell % size));
+                for (int peer : peers[cell]) {
+                    if (empty[peer]) {
+                        degree[cell]++;
+                    }
+                }
+                link(cell);
+            }
+        }
+    }
+
+    /**
+     * Returns the peer table for a board size, building and caching it on first use.
+     * Entry [cell] lists every other cell that shares a row, column or subgrid with the cell.
+     *
+     * @param size    the size of the Sudoku grid
+     * @param boxSize the size of a subgrid
+     * @return the peer table
+     */
+    static int[][] peersFor(int size, int boxSize) {
+        int[][] table = PEER_TABLES.get(size);
+        if (table != null) {
+            return table;
+        }
+        table = new int[size * size][];
+        for (int cell = 0; cell < size * size; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            int[] cellPeers = new int[3 * size - 2 * boxSize - 1];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (i != col) {
+                    cellPeers[n++] = row * size + i;
+                }
+                if (i != row) {
+                    cellPeers[n++] = i * size + col;
+                }
+            }
+            int boxRow = row - row % boxSize;
+            int boxCol = col - col % boxSize;
+            for (int r = boxRow; r < boxRow + boxSize; r++) {
+                for (int c = boxCol; c < boxCol + boxSize; c++) {
+                    if (r != row && c != col) {
+                        cellPeers[n++] = r * size + c;
+                    }
+                }
+            }
+            table[cell] = cellPeers;
+        }
+        return PEER_TABLES.compareAndSet(size, null, table) ? table : PEER_TABLES.get(size);
+    }
+
+    /**
+     * Returns the empty cell with the fewest candidates, breaking ties by the highest degree.
+     *
+     * @return the cell index (row * size + col), {@link #SOLVED} or {@link #DEAD_END}
+     */
+    public int selectCell() {
+        if (bucketHead[0] != NONE) {
+            return DEAD_END;
+        }
+        for (int c = 1; c <= size; c++) {
+            int best = bucketHead[c];
+            if (best == NONE) {
+                continue;
+            }
+            for (int cell = next[best]; cell != NONE; cell = next[cell]) {
+                if (degree[cell] > degree[best]) {
+                    best = cell;
+                }
+            }
+            return best;
+        }
+        return SOLVED;
+    }
+
+    /**
+     * Places a value in an empty cell and updates the candidate masks, counts and degrees.
+     *
+     * @param cell  the cell index (row * size + col)
+     * @param value the value to place
+     */
+    public void place(int cell, int value) {
+        unlink(cell);
+        empty[cell] = false;
+        for (int peer : peers[cell]) {
+            if (empty[peer]) {
+                degree[peer]--;
+                if (masks.isCandidate(peer / size, peer % size, value)) {
+                    unlink(peer);
+                    count[peer]--;
+                    link(peer);
+                }
+            }
+        }
+        masks.place(cell / size, cell % size, value);
+    }
+
+    /**
+     * Removes a value placed by {@link #place(int, int)}, restoring the previous counts and degrees.
+     *
+     * @param cell  the cell index (row * size + col)
+     * @param value the value to remove
+     */
+    public void undo(int cell, int value) {
+        masks.remove(cell / size, cell % size, value);
+        for (int peer : peers[cell]) {
+            if (empty[peer]) {
+                degree[peer]++;
+                if (masks.isCandidate(peer / size, peer % size, value)) {
+                    unlink(peer);
+                    count[peer]++;
+                    link(peer);
+                }
+            }
+        }
+        empty[cell] = true;
+        link(cell);
+    }
+
+    /**
+     * Inserts a cell at the head of the bucket for its candidate count.
+     *
+     * @param cell the cell index
+     */
+    private void link(int cell) {
+        int head = bucketHead[count[cell]];
+        prev[cell] = NONE;
+        next[cell] = head;
+        if (head != NONE) {
+            prev[head] = cell;
+        }
+        bucketHead[count[cell]] = cell;
+    }
+
+    /**
+     * Removes a cell from the bucket for its candidate count.
+     *
+     * @param cell the cell index
+     */
+    private void unlink(int cell) {
+        if (prev[cell] != NONE) {
+            next[prev[cell]] = next[cell];
+        } else {
+            bucketHead[count[cell]] = next[cell];
+        }
+        if (next[cell] != NONE) {
+            prev[next[cell]] = prev[cell];
+        }
+    }
+}
@@ -0,0 +1,312 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tracks which digits are already used in every row, column and subgrid of a Sudoku grid.
+ * Each unit keeps one bitmask where bit (value - 1) is set when the value is present,
+ * so a candidate test is a single AND and the masks are updated incrementally on place and remove.
+ * Cells can be addressed by row and column or by their index in row-major order; the row, column and
+ * subgrid of every index are looked up in tables built once per masks object, so solvers that reuse one
+ * masks object across puzzles allocate nothing per puzzle.
+ */
+public class CandidateMasks {
+    private static final AtomicReferenceArray<int[][]> UNIT_TABLES = new AtomicReferenceArray<>(Long.SIZE + 1);
+
+    private final int size;
+    private final int boxSize;
+    private final long allDigits;
+    private final long[] rowUsed;
+    private final long[] colUsed;
+    private final long[] boxUsed;
+    private final int[] cellRow;
+    private final int[] cellCol;
+    private final int[] cellBox;
+    private boolean consistent;
+
+    /**
+     * Constructs a new CandidateMasks object for an empty grid of a given size.
+     *
+     * @param size the size of the Sudoku grid (e.g., 9 for standard Sudoku)
+     * @throws IllegalArgumentException if the size is not a perfect square or too large for the masks
+     */
+    public CandidateMasks(int size) {
+        this.size = size;
+        this.boxSize = SudokuBoard.boxSizeFor(size);
+        this.allDigits = size == Long.SIZE ? -1L : (1L << size) - 1;
+        this.rowUsed = new long[size];
+        this.colUsed = new long[size];
+        this.boxUsed = new long[size];
+        this.cellRow = new int[size * size];
+        this.cellCol = new int[size * size];
+        this.cellBox = new int[size * size];
+        for (int cell = 0; cell < size * size; cell++) {
+            cellRow[cell] = cell / size;
+            cellCol[cell] = cell % size;
+            cellBox[cell] = (cellRow[cell] / boxSize) * boxSize + cellCol[cell] / boxSize;
+        }
+        this.consistent = true;
+    }
+
+    /**
+     * Constructs a new CandidateMasks object from the clues of a given grid.
+     *
+     * @param grid the Sudoku grid, where 0 marks an empty cell
+     * @throws IllegalArgumentException if the grid size is not a perfect square or too large for the masks
+     */
+    public CandidateMasks(int[][] grid) {
+        this(grid.length);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int value = grid[row][col];
+                if (value != 0) {
+                    if (!isCandidate(row, col, value)) {
+                        consistent = false; // Duplicate clue in a row, column or subgrid
+                    }
+                    place(row, col, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the masks and loads the clues of a puzzle given as cells in row-major order.
+     * Loading stops at the first clue that repeats a value in its row, column or subgrid.
+     *
+     * @param cells the cell values, with 0 for empty cells
+     * @return true if the clues are consistent, false otherwise
+     */
+    public boolean load(int[] cells) {
+        for (int i = 0; i < size; i++) {
+            rowUsed[i] = 0;
+            colUsed[i] = 0;
+            boxUsed[i] = 0;
+        }
+        consistent = true;
+        for (int cell = 0; cell < cells.length; cell++) {
+            int value = cells[cell];
+            if (value == 0) {
+                continue;
+            }
+            if ((getCandidates(cell) & (1L << (value - 1))) == 0) {
+                consistent = false; // Duplicate clue in a row, column or subgrid
+                return false;
+            }
+            place(cell, value);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the bitmask of values that can still be placed in a cell.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the candidate bitmask, where bit (value - 1) is set for every legal value
+     */
+    public long getCandidates(int row, int col) {
+        return allDigits & ~(rowUsed[row] | colUsed[col] | boxUsed[cellBox[row * size + col]]);
+    }
+
+    /**
+     * Checks if a value can be placed in a cell without a conflict.
+     *
+     * @param row   the row of the cell
+     * @param col   the column of the cell
+     * @param value the value to check
+     * @return true if the value is a candidate for the cell, false otherwise
+     */
+    public boolean isCandidate(int row, int col, int value) {
+        return (getCandidates(row, col) & (1L << (value - 1))) != 0;
+    }
+
+    /**
+     * Marks a value as used in the row, column and subgrid of a cell.
+     *
+     * @param row   the row of the cell
+     * @param col   the column of the cell
+     * @param value the value placed in the cell
+     */
+    public void place(int row, int col, int value) {
+        long bit = 1L << (value - 1);
+        rowUsed[row] |= bit;
+        colUsed[col] |= bit;
+        boxUsed[cellBox[row * size + col]] |= bit;
+    }
+
+    /**
+     * Clears a value from the row, column and subgrid of a cell.
+     *
+     * @param row   the row of the cell
+     * @param col   the column of the cell
+     * @param value the value removed from the cell
+     */
+    public void remove(int row, int col, int value) {
+        long mask = ~(1L << (value - 1));
+        rowUsed[row] &= mask;
+        colUsed[col] &= mask;
+        boxUsed[cellBox[row * size + col]] &= mask;
+    }
+
+    /**
+     * Returns the bitmask of values that can still be placed in a cell.
+     *
+     * @param cell the index of the cell in row-major order
+     * @return the candidate bitmask, where bit (value - 1) is set for every legal value
+     */
+    public long getCandidates(int cell) {
+        return allDigits & ~(rowUsed[cellRow[cell]] | colUsed[cellCol[cell]] | boxUsed[cellBox[cell]]);
+    }
+
+    /**
+     * Marks a value as used in the row, column and subgrid of a cell.
+     *
+     * @param cell  the index of the cell in row-major order
+     * @param value the value placed in the cell
+     */
+    public void place(int cell, int value) {
+        long bit = 1L << (value - 1);
+        rowUsed[cellRow[cell]] |= bit;
+        colUsed[cellCol[cell]] |= bit;
+        boxUsed[cellBox[cell]] |= bit;
+    }
+
+    /**
+     * Clears a value from the row, column and subgrid of a cell.
+     *
+     * @param cell  the index of the cell in row-major order
+     * @param value the value removed from the cell
+     */
+    public void remove(int cell, int value) {
+        long mask = ~(1L << (value - 1));
+        rowUsed[cellRow[cell]] &= mask;
+        colUsed[cellCol[cell]] &= mask;
+        boxUsed[cellBox[cell]] &= mask;
+    }
+
+    /**
+     * Finds the cell with the fewest candidates among a range of cells, stopping early at a cell with
+     * at most one candidate. This is the minimum-remaining-values choice of the search solvers.
+     *
+     * @param cells the cell indices to choose from
+     * @param from  the first position of the range, inclusive
+     * @param to    the last position of the range, exclusive
+     * @return the position in {@code cells} of the most constrained cell, or {@code from} if the range is empty
+     */
+    public int selectMostConstrained(int[] cells, int from, int to) {
+        int best = from;
+        int bestCount = Integer.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            int candidateCount = Long.bitCount(getCandidates(cells[i]));
+            if (candidateCount < bestCount) {
+                best = i;
+                bestCount = candidateCount;
+                if (candidateCount <= 1) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the row of a cell.
+     *
+     * @param cell the index of the cell in row-major order
+     * @return the row of the cell
+     */
+    public int getRow(int cell) {
+        return cellRow[cell];
+    }
+
+    /**
+     * Returns the column of a cell.
+     *
+     * @param cell the index of the cell in row-major order
+     * @return the column of the cell
+     */
+    public int getCol(int cell) {
+        return cellCol[cell];
+    }
+
+    /**
+     * Returns the index of the subgrid that contains a cell.
+     *
+     * @param cell the index of the cell in row-major order
+     * @return the subgrid index, counted row-major from the top-left subgrid
+     */
+    public int getBox(int cell) {
+        return cellBox[cell];
+    }
+
+    /**
+     * Returns the index of the subgrid that contains a cell.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the subgrid index, counted row-major from the top-left subgrid
+     */
+    public int getBoxIndex(int row, int col) {
+        return cellBox[row * size + col];
+    }
+
+    /**
+     * Returns the side length of a subgrid.
+     *
+     * @return the subgrid size (e.g., 3 for standard Sudoku)
+     */
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    /**
+     * Returns whether the clues the masks were built from are free of duplicates.
+     *
+     * @return true if no clue conflicts with another, false otherwise
+     */
+    public boolean isConsistent() {
+        return consistent;
+    }
+
+    /**
+     * Returns the size of the grid.
+     *
+     * @return the size of the Sudoku grid
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the bitmask with one bit set for every value of the grid.
+     *
+     * @return the mask of all values
+     */
+    public long getAllDigits() {
+        return allDigits;
+    }
+
+    /**
+     * Returns the unit table for a board size, building and caching it on first use.
+     * Entries 0 to size - 1 are the rows, then the columns, then the subgrids; each lists the indices of
+     * its cells in row-major order.
+     *
+     * @param size    the size of the Sudoku grid
+     * @param boxSize the size of a subgrid
+     * @return the unit table
+     */
+    static int[][] unitsFor(int size, int boxSize) {
+        int[][] table = UNIT_TABLES.get(size);
+        if (table != null) {
+            return table;
+        }
+        table = new int[3 * size][size];
+        for (int cell = 0; cell < size * size; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            int box = (row / boxSize) * boxSize + col / boxSize;
+            table[row][col] = cell;
+            table[size + col][row] = cell;
+            table[2 * size + box][(row % boxSize) * boxSize + col % boxSize] = cell;
+        }
+        return UNIT_TABLES.compareAndSet(size, null, table) ? table : UNIT_TABLES.get(size);
+    }
+}
@@ -0,0 +1,368 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Maps a Sudoku grid to a canonical representative of its equivalence class under the validity-preserving
+ * transforms: transposition, band and stack permutations, row and column permutations within a band or
+ * stack, and relabeling of the digits. Equivalent grids get the same canonical grid, and the transform
+ * found for a grid maps values back and forth between the grid and its canonical form.
+ * <p>
+ * Rows, columns, bands and stacks are first ordered by signatures that no transform can change, such as
+ * clue counts per box and how often their digits occur in the whole grid. Only lines with equal signatures
+ * can still be swapped, and among those arrangements the lexicographically smallest relabeled grid wins.
+ * Grids with so many equal signatures that this search would exceed a budget (highly symmetric or nearly
+ * empty grids) are reported as not canonicalizable rather than searched exhaustively.
+ */
+public final class Canonicalizer {
+    /**
+     * The maximum number of arrangements compared for one grid.
+     */
+    private static final int MAX_ARRANGEMENTS = 4096;
+
+    private final int size;
+    private final int boxSize;
+    private final int[] digitCounts;
+    private final int[] cellMap; // Canonical cell index to original cell index
+    private final int[] labels; // Original digit to canonical digit
+    private final int[] unlabels; // Canonical digit to original digit
+    private final int[] canonical;
+    private final int[] candidate;
+    private final int[] candidateLabels;
+
+    /**
+     * Constructs a new Canonicalizer object for grids of a given size.
+     *
+     * @param size the size of the Sudoku grid (e.g., 9 for standard Sudoku)
+     * @throws IllegalArgumentException if the size is not a supported perfect square
+     */
+    public Canonicalizer(int size) {
+        this.size = size;
+        this.boxSize = SudokuBoard.boxSizeFor(size);
+        this.digitCounts = new int[size + 1];
+        this.cellMap = new int[size * size];
+        this.labels = new int[size + 1];
+        this.unlabels = new int[size + 1];
+        this.canonical = new int[size * size];
+        this.candidate = new int[size * size];
+        this.candidateLabels = new int[size + 1];
+    }
+
+    /**
+     * Finds the canonical form of a grid and the transform leading to it.
+     *
+     * @param cells the cell values in row-major order, with 0 for empty cells
+     * @return true if the canonical form was found, false if the grid is too symmetric to canonicalize
+     */
+    public boolean canonicalize(int[] cells) {
+        Arrays.fill(digitCounts, 0);
+        for (int value : cells) {
+            digitCounts[value]++;
+        }
+        List<int[]> rowOrders = lineOrders(cells, false);
+        List<int[]> colOrders = rowOrders == null ? null : lineOrders(cells, true);
+        if (rowOrders == null || colOrders == null
+                || 2L * rowOrders.size() * colOrders.size() > MAX_ARRANGEMENTS) {
+            return false;
+        }
+        // The columns of the original grid are the rows of the transposed one, and vice versa
+        boolean found = false;
+        for (int transposed = 0; transposed < 2; transposed++) {
+            List<int[]> rows = transposed == 0 ? rowOrders : colOrders;
+            List<int[]> cols = transposed == 0 ? colOrders : rowOrders;
+            for (int[] rowOrder : rows) {
+                for (int[] colOrder : cols) {
+                    if (tryArrangement(cells, rowOrder, colOrder, transposed == 1, !found)) {
+                        found = true;
+                    }
+                }
+            }
+        }
+        for (int digit = 0; digit <= size; digit++) {
+            unlabels[labels[digit]] = digit;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the canonical grid found by the last call to {@link #canonicalize(int[])} as a string key,
+     * one character per cell.
+     *
+     * @return the canonical key
+     */
+    public String getKey() {
+        char[] chars = new char[canonical.length];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('0' + canonical[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns the canonical grid found by the last call to {@link #canonicalize(int[])}.
+     *
+     * @return the canonical cells in row-major order; the array is reused by the next call
+     */
+    public int[] getCanonicalCells() {
+        return canonical;
+    }
+
+    /**
+     * Maps a grid in canonical form, such as the solution of the canonical grid, back through the
+     * transform of the last canonicalized grid.
+     *
+     * @param canonicalCells the cells in canonical form
+     * @param cells          the array that receives the cells in the original orientation and digits
+     */
+    public void fromCanonical(int[] canonicalCells, int[] cells) {
+        for (int i = 0; i < canonicalCells.length; i++) {
+            cells[cellMap[i]] = unlabels[canonicalCells[i]];
+        }
+    }
+
+    /**
+     * Relabels one arrangement of the grid and keeps it if it is smaller than the best one so far.
+     *
+     * @param cells      the original cells
+     * @param rowOrder   the rows of the (possibly transposed) grid in canonical order
+     * @param colOrder   the columns of the (possibly transposed) grid in canonical order
+     * @param transposed whether the arrangement is of the transposed grid
+     * @param first      whether this is the first arrangement, which is kept unconditionally
+     * @return true if the arrangement became the best one, false otherwise
+     */
+    private boolean tryArrangement(int[] cells, int[] rowOrder, int[] colOrder, boolean transposed, boolean first) {
+        Arrays.fill(candidateLabels, 0);
+        int nextLabel = 1;
+        boolean smaller = first;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int index = transposed ? colOrder[j] * size + rowOrder[i] : rowOrder[i] * size + colOrder[j];
+                int value = cells[index];
+                if (value != 0 && candidateLabels[value] == 0) {
+                    candidateLabels[value] = nextLabel++;
+                }
+                int label = candidateLabels[value];
+                int k = i * size + j;
+                if (!smaller) {
+                    if (label > canonical[k]) {
+                        return false;
+                    }
+                    smaller = label < canonical[k];
+                }
+                candidate[k] = label;
+            }
+        }
+        if (!smaller) {
+            return false; // Same grid as the best one
+        }
+        System.arraycopy(candidate, 0, canonical, 0, canonical.length);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                cellMap[i * size + j] = transposed ? colOrder[j] * size + rowOrder[i] : rowOrder[i] * size + colOrder[j];
+            }
+        }
+        // Digits missing from the grid take the remaining labels in ascending order
+        for (int digit = 1; digit <= size; digit++) {
+            if (candidateLabels[digit] == 0) {
+                candidateLabels[digit] = nextLabel++;
+            }
+        }
+        System.arraycopy(candidateLabels, 0, labels, 0, labels.length);
+        return true;
+    }
+
+    /**
+     * Lists the orders of the rows (or of the columns) that sort bands and rows by signature,
+     * with every permutation of lines whose signatures are equal.
+     *
+     * @param cells   the original cells
+     * @param columns whether to order columns and stacks instead of rows and bands
+     * @return the line orders, or null if there are more than the budget allows
+     */
+    private List<int[]> lineOrders(int[] cells, boolean columns) {
+        int[][] lineSignatures = new int[size][];
+        for (int line = 0; line < size; line++) {
+            lineSignatures[line] = lineSignature(cells, line, columns);
+        }
+        int[][] bandSignatures = new int[boxSize][];
+        List<List<int[]>> linesPerBand = new ArrayList<>();
+        long count = 1;
+        for (int band = 0; band < boxSize; band++) {
+            bandSignatures[band] = bandSignature(cells, band, lineSignatures, columns);
+            int[] lines = new int[boxSize];
+            for (int i = 0; i < boxSize; i++) {
+                lines[i] = band * boxSize + i;
+            }
+            List<int[]> arrangements = tiedPermutations(lines, lineSignatures, MAX_ARRANGEMENTS);
+            if (arrangements == null) {
+                return null;
+            }
+            linesPerBand.add(arrangements);
+            count *= arrangements.size();
+        }
+        int[] bands = new int[boxSize];
+        for (int band = 0; band < boxSize; band++) {
+            bands[band] = band;
+        }
+        List<int[]> bandOrders = tiedPermutations(bands, bandSignatures, MAX_ARRANGEMENTS);
+        if (bandOrders == null || count * bandOrders.size() > MAX_ARRANGEMENTS) {
+            return null;
+        }
+
+        List<int[]> orders = new ArrayList<>();
+        for (int[] bandOrder : bandOrders) {
+            combine(bandOrder, linesPerBand, 0, new int[size], orders);
+        }
+        return orders;
+    }
+
+    /**
+     * Appends every line order that follows a band order, choosing one arrangement of lines per band.
+     *
+     * @param bandOrder    the bands in canonical order
+     * @param linesPerBand the possible arrangements of the lines of each band
+     * @param position     the canonical band position to fill next
+     * @param order        the line order being built
+     * @param orders       the list receiving complete line orders
+     */
+    private void combine(int[] bandOrder, List<List<int[]>> linesPerBand, int position, int[] order, List<int[]> orders) {
+        if (position == boxSize) {
+            orders.add(order.clone());
+            return;
+        }
+        for (int[] lines : linesPerBand.get(bandOrder[position])) {
+            System.arraycopy(lines, 0, order, position * boxSize, boxSize);
+            combine(bandOrder, linesPerBand, position + 1, order, orders);
+        }
+    }
+
+    /**
+     * Sorts items by signature and lists every order obtained by permuting items with equal signatures.
+     *
+     * @param items      the items to order
+     * @param signatures the signature of each item, indexed by the item
+     * @param limit      the maximum number of orders
+     * @return the orders, or null if there would be more than the limit
+     */
+    private static List<int[]> tiedPermutations(int[] items, int[][] signatures, int limit) {
+        Integer[] sorted = new Integer[items.length];
+        for (int i = 0; i < items.length; i++) {
+            sorted[i] = items[i];
+        }
+        Comparator<Integer> bySignature = (a, b) -> Arrays.compare(signatures[a], signatures[b]);
+        Arrays.sort(sorted, bySignature);
+        int[] order = new int[items.length];
+        int[] groupEnd = new int[items.length];
+        long count = 1;
+        for (int start = 0; start < items.length; ) {
+            int end = start + 1;
+            while (end < items.length && bySignature.compare(sorted[start], sorted[end]) == 0) {
+                end++;
+            }
+            for (int i = start; i < end; i++) {
+                order[i] = sorted[i];
+                groupEnd[i] = end;
+                count *= end - i;
+            }
+            if (count > limit) {
+                return null;
+            }
+            start = end;
+        }
+        List<int[]> orders = new ArrayList<>();
+        permute(order, 0, groupEnd, orders);
+        return orders;
+    }
+
+    /**
+     * Appends every permutation of an order that only moves items within their group.
+     *
+     * @param order    the order being permuted
+     * @param position the first position not fixed yet
+     * @param groupEnd for each position, the end (exclusive) of the group containing it
+     * @param orders   the list receiving the permutations
+     */
+    private static void permute(int[] order, int position, int[] groupEnd, List<int[]> orders) {
+        if (position == order.length) {
+            orders.add(order.clone());
+            return;
+        }
+        for (int i = position; i < groupEnd[position]; i++) {
+            int swap = order[position];
+            order[position] = order[i];
+            order[i] = swap;
+            permute(order, position + 1, groupEnd, orders);
+            order[i] = order[position];
+            order[position] = swap;
+        }
+    }
+
+    /**
+     * Computes a signature of a row (or column) that is unchanged by every transform keeping it a row
+     * (or column): its clue count, the sorted clue counts of its segments in each box, and the sorted
+     * grid-wide occurrence counts of its digits.
+     *
+     * @param cells  the original cells
+     * @param line   the row or column index
+     * @param column whether the line is a column
+     * @return the signature
+     */
+    private int[] lineSignature(int[] cells, int line, boolean column) {
+        int[] segments = new int[boxSize];
+        int[] frequencies = new int[size];
+        int clues = 0;
+        for (int i = 0; i < size; i++) {
+            int value = cells[column ? i * size + line : line * size + i];
+            if (value != 0) {
+                segments[i / boxSize]++;
+                frequencies[clues++] = digitCounts[value];
+            }
+        }
+        Arrays.sort(segments);
+        Arrays.sort(frequencies, 0, clues);
+        int[] signature = new int[1 + boxSize + clues];
+        signature[0] = clues;
+        System.arraycopy(segments, 0, signature, 1, boxSize);
+        System.arraycopy(frequencies, 0, signature, 1 + boxSize, clues);
+        return signature;
+    }
+
+    /**
+     * Computes a signature of a band (or stack): the sorted signatures of its lines followed by the
+     * sorted clue counts of its boxes.
+     *
+     * @param cells          the original cells
+     * @param band           the band or stack index
+     * @param lineSignatures the signature of every row or column
+     * @param column         whether the band is a stack
+     * @return the signature
+     */
+    private int[] bandSignature(int[] cells, int band, int[][] lineSignatures, boolean column) {
+        int[][] lines = new int[boxSize][];
+        int length = boxSize;
+        for (int i = 0; i < boxSize; i++) {
+            lines[i] = lineSignatures[band * boxSize + i];
+            length += lines[i].length;
+        }
+        Arrays.sort(lines, Arrays::compare);
+        int[] boxes = new int[boxSize];
+        for (int i = 0; i < boxSize; i++) {
+            for (int j = 0; j < size; j++) {
+                int line = band * boxSize + i;
+                if (cells[column ? j * size + line : line * size + j] != 0) {
+                    boxes[j / boxSize]++;
+                }
+            }
+        }
+        Arrays.sort(boxes);
+        int[] signature = new int[length];
+        int position = 0;
+        for (int[] line : lines) {
+            System.arraycopy(line, 0, signature, position, line.length);
+            position += line.length;
+        }
+        System.arraycopy(boxes, 0, signature, position, boxSize);
+        return signature;
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Fills the cells of a Sudoku grid that are forced by simple deductions, before any search branches.
+ * The propagator repeatedly places naked singles (a cell with one candidate) and hidden singles
+ * (a value with one possible cell in a row, column or subgrid) until nothing changes.
+ */
+public class ConstraintPropagator {
+    private final int[][] grid;
+    private final int size;
+    private final int boxSize;
+    private final CandidateMasks masks;
+
+    /**
+     * Constructs a new ConstraintPropagator object working on a given grid and its candidate masks.
+     *
+     * @param grid  the Sudoku grid, filled in place
+     * @param masks the candidate masks of the grid, updated for every placed value
+     */
+    public ConstraintPropagator(int[][] grid, CandidateMasks masks) {
+        this.grid = grid;
+        this.size = grid.length;
+        this.boxSize = masks.getBoxSize();
+        this.masks = masks;
+    }
+
+    /**
+     * Places naked and hidden singles until a fixpoint is reached.
+     *
+     * @return false if an empty cell or a unit ran out of candidates, true otherwise
+     */
+    public boolean propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    if (grid[row][col] != 0) {
+                        continue;
+                    }
+                    long candidates = masks.getCandidates(row, col);
+                    if (candidates == 0) {
+                        return false; // Contradiction
+                    }
+                    if (Long.bitCount(candidates) == 1) {
+                        place(row, col, candidates);
+                        changed = true;
+                    }
+                }
+            }
+            for (int unit = 0; unit < 3 * size; unit++) {
+                int result = placeHiddenSingles(unit);
+                if (result < 0) {
+                    return false;
+                }
+                changed |= result > 0;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Places every value that has exactly one possible cell in a given unit.
+     * Units 0 to size - 1 are rows, the next size units are columns and the last size units are subgrids.
+     *
+     * @param unit the index of the unit
+     * @return the number of values placed, or -1 if a missing value has no possible cell
+     */
+    private int placeHiddenSingles(int unit) {
+        long seenOnce = 0;
+        long seenTwice = 0;
+        long present = 0;
+        for (int i = 0; i < size; i++) {
+            int row = unitRow(unit, i);
+            int col = unitCol(unit, i);
+            int value = grid[row][col];
+            if (value != 0) {
+                present |= 1L << (value - 1);
+                continue;
+            }
+            long candidates = masks.getCandidates(row, col);
+            seenTwice |= seenOnce & candidates;
+            seenOnce |= candidates;
+        }
+        long allDigits = size == Long.SIZE ? -1L : (1L << size) - 1;
+        if ((seenOnce | present) != allDigits) {
+            return -1; // Some value can no longer be placed in this unit
+        }
+        long singles = seenOnce & ~seenTwice & ~present;
+        if (singles == 0) {
+            return 0;
+        }
+        int placed = 0;
+        for (int i = 0; i < size && singles != 0; i++) {
+            int row = unitRow(unit, i);
+            int col = unitCol(unit, i);
+            if (grid[row][col] != 0) {
+                continue;
+            }
+            long hit = masks.getCandidates(row, col) & singles;
+            if (hit == 0) {
+                continue;
+            }
+            if (Long.bitCount(hit) > 1) {
+                return -1; // Two values can only go in the same cell
+            }
+            singles &= ~hit;
+            place(row, col, hit);
+            placed++;
+        }
+        return placed;
+    }
+
+    /**
+     * Places the value encoded by a single-bit mask in a cell.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param bit the candidate bit of the value
+     */
+    private void place(int row, int col, long bit) {
+        int value = Long.numberOfTrailingZeros(bit) + 1;
+        grid[row][col] = value;
+        masks.place(row, col, value);
+    }
+
+    /**
+     * Returns the row of the i-th cell of a unit.
+     *
+     * @param unit the index of the unit
+     * @param i    the position of the cell within the unit
+     * @return the row of the cell
+     */
+    private int unitRow(int unit, int i) {
+        if (unit < size) {
+            return unit;
+        } else if (unit < 2 * size) {
+            return i;
+        }
+        int box = unit - 2 * size;
+        return (box / boxSize) * boxSize + i / boxSize;
+    }
+
+    /**
+     * Returns the column of the i-th cell of a unit.
+     *
+     * @param unit the index of the unit
+     * @param i    the position of the cell within the unit
+     * @return the column of the cell
+     */
+    private int unitCol(int unit, int i) {
+        if (unit < size) {
+            return i;
+        } else if (unit < 2 * size) {
+            return unit - size;
+        }
+        int box = unit - 2 * size;
+        return (box % boxSize) * boxSize + i % boxSize;
+    }
+}
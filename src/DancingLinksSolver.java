@@ -0,0 +1,247 @@
+/**
+ * Solves a Sudoku puzzle as an exact-cover problem using Knuth's Algorithm X with dancing links.
+ * Every (row, column, value) placement is a matrix row covering four constraints: the cell is filled,
+ * and the value appears once in its row, its column and its subgrid. The links live in preallocated
+ * int arrays rather than per-node objects.
+ */
+public class DancingLinksSolver implements PuzzleSolver {
+    private static final int ROOT = 0;
+
+    private final int[][] board;
+    private final int size;
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column;
+    private final int[] placement;
+    private final int[] columnSize;
+    private final boolean[] covered;
+    private final int[] solution;
+    private int solutionLength;
+    private long nodeCount;
+    private long nodeLimit = Long.MAX_VALUE;
+    private boolean limitReached;
+
+    /**
+     * Constructs a new DancingLinksSolver object with a given Sudoku puzzle board.
+     *
+     * @param board the Sudoku puzzle board
+     * @throws IllegalArgumentException if the board size is not a perfect square
+     */
+    public DancingLinksSolver(int[][] board) {
+        this.board = board;
+        this.size = board.length;
+        int boxSize = SudokuBoard.boxSizeFor(size);
+        int cells = size * size;
+        int columns = 4 * cells;
+        int nodes = 1 + columns + 4 * cells * size;
+        this.left = new int[nodes];
+        this.right = new int[nodes];
+        this.up = new int[nodes];
+        this.down = new int[nodes];
+        this.column = new int[nodes];
+        this.placement = new int[nodes];
+        this.columnSize = new int[columns + 1];
+        this.covered = new boolean[columns + 1];
+        this.solution = new int[cells];
+
+        // Column headers form a circular list around the root
+        for (int c = 0; c <= columns; c++) {
+            left[c] = c == 0 ? columns : c - 1;
+            right[c] = c == columns ? 0 : c + 1;
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+        }
+
+        // One matrix row per possible placement, linking its four constraint columns
+        int node = columns + 1;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int box = (row / boxSize) * boxSize + col / boxSize;
+                for (int digit = 0; digit < size; digit++) {
+                    int first = node;
+                    int id = (row * size + col) * size + digit;
+                    node = appendNode(node, first, id, 1 + row * size + col);
+                    node = appendNode(node, first, id, 1 + cells + row * size + digit);
+                    node = appendNode(node, first, id, 1 + 2 * cells + col * size + digit);
+                    node = appendNode(node, first, id, 1 + 3 * cells + box * size + digit);
+                }
+            }
+        }
+    }
+
+    /**
+     * Links a new node into a constraint column and into the matrix row that starts at a given node.
+     *
+     * @param node   the index of the node to link
+     * @param first  the index of the first node of the matrix row
+     * @param id     the placement encoded by the matrix row
+     * @param header the index of the column header
+     * @return the index of the next free node
+     */
+    private int appendNode(int node, int first, int id, int header) {
+        column[node] = header;
+        placement[node] = id;
+        up[node] = up[header];
+        down[node] = header;
+        down[up[header]] = node;
+        up[header] = node;
+        columnSize[header]++;
+        left[node] = node == first ? node : node - 1;
+        right[node] = first;
+        right[left[node]] = node;
+        left[first] = node;
+        return node + 1;
+    }
+
+    /**
+     * Solves the Sudoku puzzle and returns the solved board.
+     *
+     * @return the solved Sudoku puzzle board, or null if no solution exists
+     */
+    @Override
+    public int[][] solve() {
+        nodeCount = 0;
+        limitReached = false;
+        if (!applyClues() || !search()) {
+            return null;
+        }
+        for (int i = 0; i < solutionLength; i++) {
+            int id = placement[solution[i]];
+            int cell = id / size;
+            board[cell / size][cell % size] = id % size + 1;
+        }
+        return board;
+    }
+
+    /**
+     * Sets the number of search nodes after which the search gives up and returns null.
+     *
+     * @param nodeLimit the maximum number of search nodes
+     */
+    @Override
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Returns whether the last call to {@link #solve()} gave up because it ran out of nodes.
+     *
+     * @return true if the node limit was reached, false otherwise
+     */
+    @Override
+    public boolean isLimitReached() {
+        return limitReached;
+    }
+
+    /**
+     * Selects the matrix rows of the given clues so that only the empty cells remain to be covered.
+     *
+     * @return true if the clues are consistent, false if two clues share a constraint
+     */
+    private boolean applyClues() {
+        int cells = size * size;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int value = board[row][col];
+                if (value == 0) {
+                    continue;
+                }
+                int first = 1 + 4 * cells + 4 * ((row * size + col) * size + value - 1);
+                int node = first;
+                do {
+                    if (covered[column[node]]) {
+                        return false; // Duplicate clue in a row, column or subgrid
+                    }
+                    node = right[node];
+                } while (node != first);
+                do {
+                    cover(column[node]);
+                    node = right[node];
+                } while (node != first);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Recursive Algorithm X search, always branching on the column with the fewest remaining rows.
+     *
+     * @return true if an exact cover was found, false otherwise
+     */
+    private boolean search() {
+        if (right[ROOT] == ROOT) {
+            return true; // Every constraint is satisfied
+        }
+        if (++nodeCount > nodeLimit) {
+            limitReached = true;
+            return false;
+        }
+        int best = right[ROOT];
+        for (int c = right[best]; c != ROOT; c = right[c]) {
+            if (columnSize[c] < columnSize[best]) {
+                best = c;
+            }
+        }
+        if (columnSize[best] == 0) {
+            return false;
+        }
+        cover(best);
+        for (int row = down[best]; row != best; row = down[row]) {
+            solution[solutionLength++] = row;
+            for (int node = right[row]; node != row; node = right[node]) {
+                cover(column[node]);
+            }
+            if (search()) {
+                return true;
+            }
+            for (int node = left[row]; node != row; node = left[node]) {
+                uncover(column[node]); // Backtrack
+            }
+            solutionLength--;
+            if (limitReached) {
+                break;
+            }
+        }
+        uncover(best);
+        return false;
+    }
+
+    /**
+     * Removes a column from the header list and every row that intersects it from the other columns.
+     *
+     * @param header the index of the column header
+     */
+    private void cover(int header) {
+        covered[header] = true;
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        for (int row = down[header]; row != header; row = down[row]) {
+            for (int node = right[row]; node != row; node = right[node]) {
+                up[down[node]] = up[node];
+                down[up[node]] = down[node];
+                columnSize[column[node]]--;
+            }
+        }
+    }
+
+    /**
+     * Restores a column removed by {@link #cover(int)}, in exactly the reverse order.
+     *
+     * @param header the index of the column header
+     */
+    private void uncover(int header) {
+        for (int row = up[header]; row != header; row = up[row]) {
+            for (int node = left[row]; node != row; node = left[node]) {
+                columnSize[column[node]]++;
+                up[down[node]] = node;
+                down[up[node]] = node;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+        covered[header] = false;
+    }
+}
@@ -0,0 +1,632 @@
+/**
+ * Rates how hard a puzzle is for a human solver.
+ * The grader solves the puzzle with a ranked list of human techniques on bitmask candidates, always
+ * applying the easiest technique that makes progress, and reports the hardest technique it needed.
+ * A puzzle the techniques cannot finish is rated as needing {@link Technique#GUESSING}.
+ * A grader reuses its arrays across puzzles of one size and is not thread-safe.
+ */
+public final class DifficultyGrader {
+    /**
+     * The solving techniques in increasing order of difficulty, with their ratings.
+     */
+    public enum Technique {
+        /**
+         * A value that fits only one cell of a row, column or subgrid.
+         */
+        HIDDEN_SINGLE(1.2),
+
+        /**
+         * A cell with only one candidate.
+         */
+        NAKED_SINGLE(2.3),
+
+        /**
+         * A value confined to one row or column of a subgrid, removed from the rest of that line.
+         */
+        POINTING(2.6),
+
+        /**
+         * A value confined to one subgrid within a row or column, removed from the rest of that subgrid.
+         */
+        BOX_LINE_REDUCTION(2.8),
+
+        /**
+         * Two cells of a unit with the same two candidates, removed from the rest of the unit.
+         */
+        NAKED_PAIR(3.0),
+
+        /**
+         * Two values confined to the same two cells of a unit, which lose their other candidates.
+         */
+        HIDDEN_PAIR(3.4),
+
+        /**
+         * A value confined to the same two columns in two rows (or vice versa).
+         */
+        X_WING(3.6),
+
+        /**
+         * A value confined to the same three columns in three rows (or vice versa).
+         */
+        SWORDFISH(3.8),
+
+        /**
+         * A chain of two-candidate cells proving that one of its two ends holds a value.
+         */
+        XY_CHAIN(4.6),
+
+        /**
+         * The techniques above get stuck; the puzzle needs trial and error.
+         */
+        GUESSING(10.0);
+
+        private final double rating;
+
+        Technique(double rating) {
+            this.rating = rating;
+        }
+
+        /**
+         * Returns the rating of this technique.
+         *
+         * @return the rating, higher for harder techniques
+         */
+        public double getRating() {
+            return rating;
+        }
+    }
+
+    private final int size;
+    private final int boxSize;
+    private final long allDigits;
+    private final int[][] units; // Rows, then columns, then subgrids
+    private final int[][] peers;
+    private final CandidateMasks masks;
+    private final int[] values;
+    private final long[] candidates;
+    private final long[] linePositions;
+    private final int[] fishLines;
+    private final int[] bivalueCells;
+    private final long[] chainVisited;
+    private final int[] chainQueue;
+    private int emptyCount;
+    private boolean contradiction;
+    private int steps;
+    private Technique hardest;
+
+    /**
+     * Constructs a new DifficultyGrader object for puzzles of a given size.
+     *
+     * @param size the size of the Sudoku grid (e.g., 9 for standard Sudoku)
+     * @throws IllegalArgumentException if the size is not a supported perfect square
+     */
+    public DifficultyGrader(int size) {
+        this.size = size;
+        this.boxSize = SudokuBoard.boxSizeFor(size);
+        this.allDigits = size == Long.SIZE ? -1L : (1L << size) - 1;
+        this.units = CandidateMasks.unitsFor(size, boxSize);
+        this.peers = CandidateCountIndex.peersFor(size, boxSize);
+        this.masks = new CandidateMasks(size);
+        this.values = new int[size * size];
+        this.candidates = new long[size * size];
+        this.linePositions = new long[size];
+        this.fishLines = new int[size];
+        this.bivalueCells = new int[size * size];
+        this.chainVisited = new long[size * size];
+        this.chainQueue = new int[4 * size * size]; // Each cell enters at most once per candidate
+    }
+
+    /**
+     * Grades a puzzle.
+     *
+     * @param cells the cell values in row-major order, with 0 for empty cells; it is left unchanged
+     * @return the hardest technique needed, {@link Technique#GUESSING} if the techniques get stuck,
+     * or null if the clues contradict each other
+     */
+    public Technique grade(int[] cells) {
+        steps = 0;
+        hardest = null;
+        if (!load(cells)) {
+            return null;
+        }
+        hardest = Technique.HIDDEN_SINGLE;
+        while (emptyCount > 0) {
+            Technique technique = step();
+            if (contradiction) {
+                hardest = null;
+                return null;
+            }
+            if (technique == null) {
+                hardest = Technique.GUESSING;
+                break;
+            }
+            steps++;
+            if (technique.compareTo(hardest) > 0) {
+                hardest = technique;
+            }
+        }
+        return hardest;
+    }
+
+    /**
+     * Grades a puzzle given as a grid.
+     *
+     * @param grid the Sudoku puzzle grid, where 0 marks an empty cell; it is left unchanged
+     * @return the hardest technique needed, see {@link #grade(int[])}
+     */
+    public Technique grade(int[][] grid) {
+        int[] cells = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(grid[row], 0, cells, row * size, size);
+        }
+        return grade(cells);
+    }
+
+    /**
+     * Returns the score of the last graded puzzle: the rating of the hardest technique needed.
+     *
+     * @return the score, or 0 if the puzzle was inconsistent
+     */
+    public double getScore() {
+        return hardest == null ? 0.0 : hardest.getRating();
+    }
+
+    /**
+     * Returns the number of technique applications used on the last graded puzzle.
+     *
+     * @return the number of steps
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * Applies the easiest technique that makes progress.
+     *
+     * @return the technique applied, or null if none made progress or a contradiction was found
+     */
+    private Technique step() {
+        if (hiddenSingles()) {
+            return Technique.HIDDEN_SINGLE;
+        }
+        if (nakedSingles()) {
+            return Technique.NAKED_SINGLE;
+        }
+        if (contradiction) {
+            return null;
+        }
+        if (pointing()) {
+            return Technique.POINTING;
+        }
+        if (boxLineReduction()) {
+            return Technique.BOX_LINE_REDUCTION;
+        }
+        if (nakedPairs()) {
+            return Technique.NAKED_PAIR;
+        }
+        if (hiddenPairs()) {
+            return Technique.HIDDEN_PAIR;
+        }
+        if (fish(2)) {
+            return Technique.X_WING;
+        }
+        if (fish(3)) {
+            return Technique.SWORDFISH;
+        }
+        if (xyChain()) {
+            return Technique.XY_CHAIN;
+        }
+        return null;
+    }
+
+    /**
+     * Loads the clues and computes the candidates of every empty cell.
+     *
+     * @param cells the cell values
+     * @return true if the clues are consistent, false otherwise
+     */
+    private boolean load(int[] cells) {
+        contradiction = false;
+        emptyCount = 0;
+        if (!masks.load(cells)) {
+            return false;
+        }
+        for (int cell = 0; cell < values.length; cell++) {
+            values[cell] = cells[cell];
+            candidates[cell] = cells[cell] == 0 ? masks.getCandidates(cell) : 0;
+            if (cells[cell] == 0) {
+                emptyCount++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Places a value in a cell and removes it from the candidates of the cell's peers.
+     *
+     * @param cell the cell
+     * @param bit  the candidate bit of the value
+     */
+    private void place(int cell, long bit) {
+        values[cell] = Long.numberOfTrailingZeros(bit) + 1;
+        candidates[cell] = 0;
+        emptyCount--;
+        for (int peer : peers[cell]) {
+            candidates[peer] &= ~bit;
+        }
+    }
+
+    /**
+     * Places every value that fits only one cell of some unit.
+     *
+     * @return true if a value was placed, false otherwise
+     */
+    private boolean hiddenSingles() {
+        boolean progress = false;
+        for (int[] unit : units) {
+            long once = 0;
+            long twice = 0;
+            long placed = 0;
+            for (int cell : unit) {
+                long mask = candidates[cell];
+                twice |= once & mask;
+                once |= mask;
+                if (values[cell] != 0) {
+                    placed |= 1L << (values[cell] - 1);
+                }
+            }
+            if ((once | placed) != allDigits) {
+                contradiction = true; // Some value has no place left in this unit
+                return false;
+            }
+            long singles = once & ~twice;
+            while (singles != 0) {
+                long bit = Long.lowestOneBit(singles);
+                singles ^= bit;
+                for (int cell : unit) {
+                    if ((candidates[cell] & bit) != 0) {
+                        place(cell, bit);
+                        progress = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Places the value of every cell left with one candidate.
+     *
+     * @return true if a value was placed, false otherwise
+     */
+    private boolean nakedSingles() {
+        boolean progress = false;
+        for (int cell = 0; cell < values.length; cell++) {
+            if (values[cell] != 0) {
+                continue;
+            }
+            long mask = candidates[cell];
+            if (mask == 0) {
+                contradiction = true;
+                return false;
+            }
+            if (Long.bitCount(mask) == 1) {
+                place(cell, mask);
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Removes a value from the rest of a row or column when, within a subgrid, it is confined to that line.
+     *
+     * @return true if a candidate was removed, false otherwise
+     */
+    private boolean pointing() {
+        boolean progress = false;
+        for (int box = 0; box < size; box++) {
+            int[] unit = units[2 * size + box];
+            for (long digits = allDigits; digits != 0; digits &= digits - 1) {
+                long bit = Long.lowestOneBit(digits);
+                long rows = 0;
+                long cols = 0;
+                for (int cell : unit) {
+                    if ((candidates[cell] & bit) != 0) {
+                        rows |= 1L << masks.getRow(cell);
+                        cols |= 1L << masks.getCol(cell);
+                    }
+                }
+                if (Long.bitCount(rows) == 1) {
+                    progress |= eliminateOutsideBox(units[Long.numberOfTrailingZeros(rows)], box, bit);
+                }
+                if (Long.bitCount(cols) == 1) {
+                    progress |= eliminateOutsideBox(units[size + Long.numberOfTrailingZeros(cols)], box, bit);
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Removes a value from the rest of a subgrid when, within a row or column, it is confined to that subgrid.
+     *
+     * @return true if a candidate was removed, false otherwise
+     */
+    private boolean boxLineReduction() {
+        boolean progress = false;
+        for (int line = 0; line < 2 * size; line++) {
+            int[] unit = units[line];
+            for (long digits = allDigits; digits != 0; digits &= digits - 1) {
+                long bit = Long.lowestOneBit(digits);
+                long boxes = 0;
+                for (int cell : unit) {
+                    if ((candidates[cell] & bit) != 0) {
+                        boxes |= 1L << masks.getBox(cell);
+                    }
+                }
+                if (Long.bitCount(boxes) == 1) {
+                    int box = Long.numberOfTrailingZeros(boxes);
+                    for (int cell : units[2 * size + box]) {
+                        boolean onLine = line < size ? masks.getRow(cell) == line : masks.getCol(cell) == line - size;
+                        if (!onLine && (candidates[cell] & bit) != 0) {
+                            candidates[cell] &= ~bit;
+                            progress = true;
+                        }
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Removes a candidate from the cells of a line that lie outside a subgrid.
+     *
+     * @param line the cells of the row or column
+     * @param box  the subgrid to leave untouched
+     * @param bit  the candidate bit to remove
+     * @return true if a candidate was removed, false otherwise
+     */
+    private boolean eliminateOutsideBox(int[] line, int box, long bit) {
+        boolean progress = false;
+        for (int cell : line) {
+            if (masks.getBox(cell) != box && (candidates[cell] & bit) != 0) {
+                candidates[cell] &= ~bit;
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Removes the two candidates of a naked pair from the other cells of its unit.
+     *
+     * @return true if a candidate was removed, false otherwise
+     */
+    private boolean nakedPairs() {
+        for (int[] unit : units) {
+            for (int i = 0; i < size; i++) {
+                long pair = candidates[unit[i]];
+                if (Long.bitCount(pair) != 2) {
+                    continue;
+                }
+                for (int j = i + 1; j < size; j++) {
+                    if (candidates[unit[j]] != pair) {
+                        continue;
+                    }
+                    boolean progress = false;
+                    for (int k = 0; k < size; k++) {
+                        int cell = unit[k];
+                        if (k != i && k != j && (candidates[cell] & pair) != 0) {
+                            candidates[cell] &= ~pair;
+                            progress = true;
+                        }
+                    }
+                    if (progress) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Restricts the two cells of a hidden pair to the pair's values.
+     *
+     * @return true if a candidate was removed, false otherwise
+     */
+    private boolean hiddenPairs() {
+        for (int[] unit : units) {
+            for (int d = 0; d < size; d++) {
+                linePositions[d] = 0;
+                for (int i = 0; i < size; i++) {
+                    if ((candidates[unit[i]] & (1L << d)) != 0) {
+                        linePositions[d] |= 1L << i;
+                    }
+                }
+            }
+            for (int d1 = 0; d1 < size; d1++) {
+                if (Long.bitCount(linePositions[d1]) != 2) {
+                    continue;
+                }
+                for (int d2 = d1 + 1; d2 < size; d2++) {
+                    if (linePositions[d2] != linePositions[d1]) {
+                        continue;
+                    }
+                    long pair = (1L << d1) | (1L << d2);
+                    boolean progress = false;
+                    for (long positions = linePositions[d1]; positions != 0; positions &= positions - 1) {
+                        int cell = unit[Long.numberOfTrailingZeros(positions)];
+                        if ((candidates[cell] & ~pair) != 0) {
+                            candidates[cell] &= pair;
+                            progress = true;
+                        }
+                    }
+                    if (progress) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks for a fish of a given size (2 for an X-wing, 3 for a swordfish): a value confined to the
+     * same n columns in n rows, which removes it from the rest of those columns, or vice versa.
+     *
+     * @param fishSize the number of base lines
+     * @return true if a candidate was removed, false otherwise
+     */
+    private boolean fish(int fishSize) {
+        for (int d = 0; d < size; d++) {
+            long bit = 1L << d;
+            for (int orientation = 0; orientation < 2; orientation++) {
+                int lineCount = 0;
+                for (int line = 0; line < size; line++) {
+                    long positions = 0;
+                    for (int cell : units[orientation * size + line]) {
+                        if ((candidates[cell] & bit) != 0) {
+                            positions |= 1L << (orientation == 0 ? masks.getCol(cell) : masks.getRow(cell));
+                        }
+                    }
+                    int count = Long.bitCount(positions);
+                    if (count >= 2 && count <= fishSize) {
+                        linePositions[lineCount] = positions;
+                        fishLines[lineCount++] = line;
+                    }
+                }
+                if (findFish(orientation, bit, fishSize, 0, lineCount, 0, 0L, 0L)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recursive helper that picks base lines for a fish and applies its eliminations once complete.
+     *
+     * @param orientation 0 if the base lines are rows, 1 if they are columns
+     * @param bit         the candidate bit of the value
+     * @param fishSize    the number of base lines
+     * @param start       the first eligible line that may still be picked
+     * @param lineCount   the number of eligible lines
+     * @param picked      the number of base lines picked so far
+     * @param baseLines   the picked base lines as a bit set of line indices
+     * @param cover       the union of the positions of the value in the picked lines
+     * @return true if a candidate was removed, false otherwise
+     */
+    private boolean findFish(int orientation, long bit, int fishSize, int start, int lineCount, int picked,
+                             long baseLines, long cover) {
+        if (picked == fishSize) {
+            boolean progress = false;
+            for (long covers = cover; covers != 0; covers &= covers - 1) {
+                int coverLine = Long.numberOfTrailingZeros(covers);
+                for (int cell : units[(1 - orientation) * size + coverLine]) {
+                    int baseLine = orientation == 0 ? masks.getRow(cell) : masks.getCol(cell);
+                    if ((baseLines & (1L << baseLine)) == 0 && (candidates[cell] & bit) != 0) {
+                        candidates[cell] &= ~bit;
+                        progress = true;
+                    }
+                }
+            }
+            return progress;
+        }
+        for (int i = start; i < lineCount; i++) {
+            long union = cover | linePositions[i];
+            if (Long.bitCount(union) <= fishSize
+                    && findFish(orientation, bit, fishSize, i + 1, lineCount, picked + 1,
+                    baseLines | (1L << fishLines[i]), union)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks for an XY-chain: a path of two-candidate cells, each sharing a unit and a value with the next,
+     * such that if the first cell is not z then the last one is. Cells seeing both ends cannot be z.
+     *
+     * @return true if a candidate was removed, false otherwise
+     */
+    private boolean xyChain() {
+        int bivalueCount = 0;
+        for (int cell = 0; cell < values.length; cell++) {
+            if (Long.bitCount(candidates[cell]) == 2) {
+                bivalueCells[bivalueCount++] = cell;
+            }
+        }
+        for (int s = 0; s < bivalueCount; s++) {
+            int start = bivalueCells[s];
+            for (long zs = candidates[start]; zs != 0; zs &= zs - 1) {
+                long z = Long.lowestOneBit(zs);
+                for (int i = 0; i < bivalueCount; i++) {
+                    chainVisited[bivalueCells[i]] = 0;
+                }
+                // Each queue entry is a cell and the value it holds if the start cell is not z
+                int head = 0;
+                int tail = 0;
+                long trueBit = candidates[start] ^ z;
+                chainVisited[start] |= trueBit;
+                chainQueue[tail++] = start;
+                chainQueue[tail++] = Long.numberOfTrailingZeros(trueBit);
+                while (head < tail) {
+                    int cell = chainQueue[head++];
+                    long holds = 1L << chainQueue[head++];
+                    for (int i = 0; i < bivalueCount; i++) {
+                        int next = bivalueCells[i];
+                        if (next == cell || (candidates[next] & holds) == 0 || !sees(cell, next)) {
+                            continue;
+                        }
+                        long nextHolds = candidates[next] ^ holds;
+                        if ((chainVisited[next] & nextHolds) != 0) {
+                            continue;
+                        }
+                        chainVisited[next] |= nextHolds;
+                        if (nextHolds == z && next != start && eliminateSeenByBoth(start, next, z)) {
+                            return true;
+                        }
+                        chainQueue[tail++] = next;
+                        chainQueue[tail++] = Long.numberOfTrailingZeros(nextHolds);
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a candidate from every cell that sees both ends of a chain.
+     *
+     * @param first the first end of the chain
+     * @param last  the last end of the chain
+     * @param bit   the candidate bit to remove
+     * @return true if a candidate was removed, false otherwise
+     */
+    private boolean eliminateSeenByBoth(int first, int last, long bit) {
+        boolean progress = false;
+        for (int cell : peers[first]) {
+            if (cell != last && (candidates[cell] & bit) != 0 && sees(cell, last)) {
+                candidates[cell] &= ~bit;
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Checks if two different cells share a row, column or subgrid.
+     *
+     * @param a the first cell
+     * @param b the second cell
+     * @return true if the cells are peers, false otherwise
+     */
+    private boolean sees(int a, int b) {
+        return masks.getRow(a) == masks.getRow(b) || masks.getCol(a) == masks.getCol(b)
+                || masks.getBox(a) == masks.getBox(b);
+    }
+}
@@ -5,6 +5,7 @@ public class GameConfig {
     private int size;
     private int difficulty;
     private boolean playWithTimer;
+    private SolverEngine solverEngine;
 
     /**
      * Constructs a new GameConfig object with a given size, difficulty, and playWithTimer flag.
@@ -14,9 +15,22 @@ public class GameConfig {
      * @param playWithTimer whether to play the game with a timer
      */
     public GameConfig(int size, int difficulty, boolean playWithTimer) {
+        this(size, difficulty, playWithTimer, SolverEngine.BACKTRACKING);
+    }
+
+    /**
+     * Constructs a new GameConfig object with a given size, difficulty, playWithTimer flag, and solver engine.
+     *
+     * @param size          the size of the Sudoku puzzle
+     * @param difficulty    the difficulty level of the Sudoku puzzle
+     * @param playWithTimer whether to play the game with a timer
+     * @param solverEngine  the engine used to solve the puzzle
+     */
+    public GameConfig(int size, int difficulty, boolean playWithTimer, SolverEngine solverEngine) {
         this.size = size;
         this.difficulty = difficulty;
         this.playWithTimer = playWithTimer;
+        this.solverEngine = solverEngine;
     }
 
     /**
@@ -72,4 +86,22 @@ public class GameConfig {
     public void setPlayWithTimer(boolean playWithTimer) {
         this.playWithTimer = playWithTimer;
     }
+
+    /**
+     * Returns the engine used to solve the puzzle.
+     *
+     * @return the solver engine
+     */
+    public SolverEngine getSolverEngine() {
+        return solverEngine;
+    }
+
+    /**
+     * Sets the engine used to solve the puzzle.
+     *
+     * @param solverEngine the new solver engine
+     */
+    public void setSolverEngine(SolverEngine solverEngine) {
+        this.solverEngine = solverEngine;
+    }
 }
\ No newline at end of file
@@ -1,4 +1,6 @@
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Utility class for Sudoku game operations.
@@ -29,4 +31,17 @@ public class GameUtils {
     public static void closeScanner() {
         scanner.close();
     }
+
+    /**
+     * Returns an executor that starts a virtual thread per task, if the JVM supports virtual threads.
+     *
+     * @return the executor, or null on JVMs without virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null; // Before Java 21, or a preview feature that is not enabled
+        }
+    }
 }
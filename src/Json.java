@@ -0,0 +1,310 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal JSON reader and writer for the HTTP service.
+ * Parsing yields plain Java values: objects become {@code Map<String, Object>} in document order, arrays
+ * become {@code List<Object>}, integral numbers become Long, other numbers Double, and true, false and
+ * null become Boolean and null. Writing only covers what the service sends: quoted strings and numbers,
+ * appended to a StringBuilder by the caller.
+ */
+public final class Json {
+    /**
+     * The deepest nesting of arrays and objects accepted, so hostile input cannot overflow the stack.
+     */
+    private static final int MAX_DEPTH = 64;
+
+    private final String text;
+    private int position;
+
+    /**
+     * Constructs a new Json object over a document.
+     *
+     * @param text the JSON document
+     */
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a JSON document.
+     *
+     * @param text the JSON document
+     * @return the parsed value
+     * @throws IllegalArgumentException if the text is not valid JSON
+     */
+    public static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.readValue(0);
+        json.skipWhitespace();
+        if (json.position != text.length()) {
+            throw json.error("Unexpected data after the value");
+        }
+        return value;
+    }
+
+    /**
+     * Appends a string as a quoted JSON string.
+     *
+     * @param out   the builder to append to
+     * @param value the string
+     * @return the builder
+     */
+    public static StringBuilder appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Appends cells as a JSON array of numbers.
+     *
+     * @param out   the builder to append to
+     * @param cells the cell values
+     * @return the builder
+     */
+    public static StringBuilder appendCells(StringBuilder out, int[] cells) {
+        out.append('[');
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(cells[i]);
+        }
+        return out.append(']');
+    }
+
+    /**
+     * Reads any value.
+     *
+     * @param depth the nesting depth of the value
+     * @return the value
+     */
+    private Object readValue(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw error("Nesting too deep");
+        }
+        skipWhitespace();
+        if (position == text.length()) {
+            throw error("Unexpected end of input");
+        }
+        char c = text.charAt(position);
+        return switch (c) {
+            case '{' -> readObject(depth);
+            case '[' -> readArray(depth);
+            case '"' -> readString();
+            case 't' -> readLiteral("true", Boolean.TRUE);
+            case 'f' -> readLiteral("false", Boolean.FALSE);
+            case 'n' -> readLiteral("null", null);
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    yield readNumber();
+                }
+                throw error("Unexpected character '" + c + "'");
+            }
+        };
+    }
+
+    /**
+     * Reads an object.
+     *
+     * @param depth the nesting depth of the object
+     * @return the members in document order
+     */
+    private Map<String, Object> readObject(int depth) {
+        Map<String, Object> members = new LinkedHashMap<>();
+        position++; // '{'
+        skipWhitespace();
+        if (consume('}')) {
+            return members;
+        }
+        do {
+            skipWhitespace();
+            if (position == text.length() || text.charAt(position) != '"') {
+                throw error("Expected a member name");
+            }
+            String name = readString();
+            skipWhitespace();
+            if (!consume(':')) {
+                throw error("Expected ':'");
+            }
+            members.put(name, readValue(depth + 1));
+            skipWhitespace();
+        } while (consume(','));
+        if (!consume('}')) {
+            throw error("Expected ',' or '}'");
+        }
+        return members;
+    }
+
+    /**
+     * Reads an array.
+     *
+     * @param depth the nesting depth of the array
+     * @return the elements
+     */
+    private List<Object> readArray(int depth) {
+        List<Object> elements = new ArrayList<>();
+        position++; // '['
+        skipWhitespace();
+        if (consume(']')) {
+            return elements;
+        }
+        do {
+            elements.add(readValue(depth + 1));
+            skipWhitespace();
+        } while (consume(','));
+        if (!consume(']')) {
+            throw error("Expected ',' or ']'");
+        }
+        return elements;
+    }
+
+    /**
+     * Reads a quoted string, decoding its escapes.
+     *
+     * @return the string
+     */
+    private String readString() {
+        position++; // Opening quote
+        StringBuilder value = new StringBuilder();
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position == text.length()) {
+                break;
+            }
+            char escape = text.charAt(position++);
+            switch (escape) {
+                case '"', '\\', '/' -> value.append(escape);
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw error("Invalid unicode escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    position += 4;
+                }
+                default -> throw error("Invalid escape '\\" + escape + "'");
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    /**
+     * Reads a number.
+     *
+     * @return a Long if the number is integral and fits, a Double otherwise
+     */
+    private Object readNumber() {
+        int start = position;
+        boolean integral = true;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '.' || c == 'e' || c == 'E') {
+                integral = false;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            position++;
+        }
+        String number = text.substring(start, position);
+        try {
+            if (integral) {
+                try {
+                    return Long.parseLong(number);
+                } catch (NumberFormatException e) {
+                    // Too large for a long; fall through to a double
+                }
+            }
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("Invalid number '" + number + "'");
+        }
+    }
+
+    /**
+     * Reads a literal word.
+     *
+     * @param word  the literal
+     * @param value the value it stands for
+     * @return the value
+     */
+    private Object readLiteral(String word, Object value) {
+        if (!text.startsWith(word, position)) {
+            throw error("Unexpected token");
+        }
+        position += word.length();
+        return value;
+    }
+
+    /**
+     * Skips a character if it is the next one.
+     *
+     * @param c the character
+     * @return true if the character was skipped
+     */
+    private boolean consume(char c) {
+        if (position < text.length() && text.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skips spaces, tabs and line breaks.
+     */
+    private void skipWhitespace() {
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Creates the exception for a syntax error at the current position.
+     *
+     * @param message what is wrong
+     * @return the exception
+     */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid JSON at offset " + position + ": " + message);
+    }
+}
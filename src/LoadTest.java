@@ -0,0 +1,399 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulates many players at once to size hardware for hosted games.
+ * Every simulated session generates a puzzle, solves it to learn the answer, then fills the empty cells
+ * through a SudokuEngine in random order, pausing for a think time before each move, sometimes entering
+ * a wrong value first and taking it back, and sometimes undoing and redoing a move. Each engine call is
+ * timed into a LatencyHistogram per operation.
+ * Sessions run one per virtual thread when the JVM has them (Java 21 and later, looked up by reflection
+ * so the code still builds on Java 17); otherwise they share a pool of {@value #FALLBACK_THREADS}
+ * platform threads, which makes think times much more expensive.
+ */
+public class LoadTest {
+    /**
+     * The number of platform threads used when virtual threads are not available.
+     */
+    private static final int FALLBACK_THREADS = 256;
+
+    /**
+     * The interval between two samples of the heap usage.
+     */
+    private static final long HEAP_SAMPLE_MILLIS = 50;
+
+    /**
+     * An operation a session performs, with its own latency histogram.
+     */
+    public enum Operation {
+        /**
+         * Generating the puzzle of a session.
+         */
+        GENERATE,
+        /**
+         * Solving the puzzle to learn the moves to play.
+         */
+        SOLVE,
+        /**
+         * Applying a move, right or wrong.
+         */
+        MOVE,
+        /**
+         * Undoing a move.
+         */
+        UNDO,
+        /**
+         * Redoing an undone move.
+         */
+        REDO
+    }
+
+    private final GameConfig config;
+    private final long thinkMillis;
+    private final double errorRate;
+    private final double undoRate;
+    private final Map<Operation, LatencyHistogram> latencies;
+    private final AtomicLong completed;
+    private final AtomicLong failed;
+    private final AtomicLong wrongMoves;
+
+    /**
+     * Constructs a new LoadTest object.
+     *
+     * @param config      the size, difficulty and solver engine of the simulated games
+     * @param thinkMillis the mean pause before each move, in milliseconds; 0 plays without pausing
+     * @param errorRate   the probability of entering a wrong value before a move
+     * @param undoRate    the probability of undoing and redoing a move after it is played
+     */
+    public LoadTest(GameConfig config, long thinkMillis, double errorRate, double undoRate) {
+        this.config = config;
+        this.thinkMillis = thinkMillis;
+        this.errorRate = errorRate;
+        this.undoRate = undoRate;
+        this.latencies = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+        this.completed = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.wrongMoves = new AtomicLong();
+    }
+
+    /**
+     * Runs the load test from command-line arguments:
+     * {@code [--sessions N] [--concurrency C] [--size N] [--difficulty D] [--think-ms MS] [--error-rate R]
+     * [--undo-rate R] [--seed S]}. The report goes to stdout.
+     *
+     * @param args the arguments following {@code --loadtest}
+     */
+    public static void run(String[] args) {
+        int sessions = 1000;
+        int concurrency = 0; // All sessions at once
+        int size = 9;
+        int difficulty = 1;
+        long thinkMillis = 0;
+        double errorRate = 0.05;
+        double undoRate = 0.05;
+        long seed = System.nanoTime();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--sessions" -> sessions = Integer.parseInt(args[++i]);
+                    case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                    case "--size" -> size = Integer.parseInt(args[++i]);
+                    case "--difficulty" -> difficulty = Integer.parseInt(args[++i]);
+                    case "--think-ms" -> thinkMillis = Long.parseLong(args[++i]);
+                    case "--error-rate" -> errorRate = Double.parseDouble(args[++i]);
+                    case "--undo-rate" -> undoRate = Double.parseDouble(args[++i]);
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    default -> throw new IllegalArgumentException();
+                }
+            }
+            SudokuBoard.boxSizeFor(size);
+            if (sessions < 1 || concurrency < 0 || thinkMillis < 0 || errorRate < 0 || errorRate > 1
+                    || undoRate < 0 || undoRate > 1) {
+                throw new IllegalArgumentException();
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Usage: java Main --loadtest [--sessions N] [--concurrency C] [--size N] [--difficulty D]"
+                    + " [--think-ms MS] [--error-rate R] [--undo-rate R] [--seed S]");
+            return;
+        }
+
+        LoadTest loadTest = new LoadTest(new GameConfig(size, difficulty, false), thinkMillis, errorRate, undoRate);
+        try {
+            loadTest.run(sessions, concurrency == 0 ? sessions : concurrency, seed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Load test interrupted.");
+        } catch (ExecutionException e) {
+            System.err.println("Error: " + e.getCause());
+        }
+    }
+
+    /**
+     * Runs a number of sessions and prints the report.
+     *
+     * @param sessions    the number of sessions to simulate
+     * @param concurrency the largest number of sessions playing at the same time
+     * @param seed        the seed of the root random source, split once per session
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the sessions
+     * @throws ExecutionException   if a session fails with an exception
+     */
+    public void run(int sessions, int concurrency, long seed) throws InterruptedException, ExecutionException {
+        ExecutorService executor = GameUtils.newVirtualThreadExecutor();
+        String threads = "virtual threads";
+        if (executor == null) {
+            int poolSize = Math.min(concurrency, FALLBACK_THREADS);
+            executor = Executors.newFixedThreadPool(poolSize);
+            threads = poolSize + " platform threads (virtual threads need Java 21)";
+        }
+        HeapSampler heapSampler = new HeapSampler();
+        heapSampler.start();
+        Semaphore permits = new Semaphore(concurrency);
+        SplittableRandom root = new SplittableRandom(seed);
+        List<Future<?>> futures = new ArrayList<>(sessions);
+        long start = System.nanoTime();
+        try {
+            for (int s = 0; s < sessions; s++) {
+                SplittableRandom random = root.split();
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        playSession(random);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            heapSampler.interrupt();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        printReport(sessions, concurrency, threads, elapsedNanos, heapSampler.getPeakBytes());
+    }
+
+    /**
+     * Plays one session on the calling thread.
+     *
+     * @param random the random source of the session
+     * @throws InterruptedException if the thread is interrupted during a think time
+     */
+    void playSession(SplittableRandom random) throws InterruptedException {
+        long start = System.nanoTime();
+        int[][] puzzle = new SudokuGenerator(config, random).getSudokuGrid();
+        record(Operation.GENERATE, start);
+
+        int size = puzzle.length;
+        int[] cells = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(puzzle[row], 0, cells, row * size, size);
+        }
+        int[] solution = new int[size * size];
+        start = System.nanoTime();
+        boolean solvable = config.getSolverEngine().solve(cells, solution);
+        record(Operation.SOLVE, start);
+        if (!solvable) {
+            failed.incrementAndGet();
+            return;
+        }
+
+        SudokuEngine engine = new SudokuEngine(puzzle, config.getSolverEngine());
+        int[] emptyCells = new int[size * size];
+        int empty = 0;
+        for (int index = 0; index < size * size; index++) {
+            if (puzzle[index / size][index % size] == 0) {
+                emptyCells[empty++] = index;
+            }
+        }
+        for (int i = empty - 1; i > 0; i--) { // Fill the cells in random order
+            int j = random.nextInt(i + 1);
+            int cell = emptyCells[i];
+            emptyCells[i] = emptyCells[j];
+            emptyCells[j] = cell;
+        }
+
+        for (int i = 0; i < empty; i++) {
+            int row = emptyCells[i] / size;
+            int col = emptyCells[i] % size;
+            int value = solution[emptyCells[i]];
+            think(random);
+            if (random.nextDouble() < errorRate) {
+                int wrongValue = 1 + (value + random.nextInt(size - 1)) % size; // Any value but the right one
+                wrongMoves.incrementAndGet();
+                start = System.nanoTime();
+                SudokuEngine.Result result = engine.applyMove(row, col, wrongValue);
+                record(Operation.MOVE, start);
+                if (result == SudokuEngine.Result.OK) {
+                    start = System.nanoTime();
+                    engine.undo();
+                    record(Operation.UNDO, start);
+                }
+            }
+            start = System.nanoTime();
+            SudokuEngine.Result result = engine.applyMove(row, col, value);
+            record(Operation.MOVE, start);
+            if (result != SudokuEngine.Result.OK) {
+                failed.incrementAndGet();
+                return;
+            }
+            if (random.nextDouble() < undoRate) {
+                start = System.nanoTime();
+                engine.undo();
+                record(Operation.UNDO, start);
+                start = System.nanoTime();
+                engine.redo();
+                record(Operation.REDO, start);
+            }
+        }
+        if (engine.isSolved()) {
+            completed.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Pauses for a random think time averaging the configured one.
+     *
+     * @param random the random source of the session
+     * @throws InterruptedException if the thread is interrupted while pausing
+     */
+    private void think(SplittableRandom random) throws InterruptedException {
+        if (thinkMillis > 0) {
+            Thread.sleep(random.nextLong(2 * thinkMillis + 1));
+        }
+    }
+
+    /**
+     * Records the latency of an operation that started at a given time.
+     *
+     * @param operation  the operation
+     * @param startNanos the value of System.nanoTime() when the operation started
+     */
+    private void record(Operation operation, long startNanos) {
+        latencies.get(operation).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the latency histogram of an operation.
+     *
+     * @param operation the operation
+     * @return the histogram
+     */
+    public LatencyHistogram getLatencies(Operation operation) {
+        return latencies.get(operation);
+    }
+
+    /**
+     * Returns the number of sessions that solved their puzzle.
+     *
+     * @return the completed session count
+     */
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * Returns the number of sessions whose puzzle could not be solved or whose moves were rejected.
+     *
+     * @return the failed session count
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Prints the throughput, the latency of each operation and the heap usage.
+     *
+     * @param sessions     the number of sessions
+     * @param concurrency  the largest number of sessions playing at the same time
+     * @param threads      a description of the threads the sessions ran on
+     * @param elapsedNanos the duration of the run
+     * @param peakHeap     the largest heap usage sampled during the run, in bytes
+     */
+    private void printReport(int sessions, int concurrency, String threads, long elapsedNanos, long peakHeap) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("Sessions: %d (completed %d, failed %d, wrong moves %d), up to %d at once on %s%n",
+                sessions, completed.get(), failed.get(), wrongMoves.get(), concurrency, threads);
+        System.out.printf("Elapsed: %.3f s, throughput: %.1f sessions/sec%n", seconds,
+                seconds > 0 ? sessions / seconds : 0.0);
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s%n", "Operation", "count", "mean", "p50", "p99",
+                "p99.9", "max");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            System.out.printf("%-10s %10d %10s %10s %10s %10s %10s%n", operation.name().toLowerCase(),
+                    histogram.getCount(), LatencyHistogram.formatNanos(histogram.getMean()),
+                    LatencyHistogram.formatNanos(histogram.getPercentile(50)),
+                    LatencyHistogram.formatNanos(histogram.getPercentile(99)),
+                    LatencyHistogram.formatNanos(histogram.getPercentile(99.9)),
+                    LatencyHistogram.formatNanos(histogram.getMax()));
+        }
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("Heap: peak %.1f MB used, %.1f MB committed, %.1f MB max%n", peakHeap / 1e6,
+                runtime.totalMemory() / 1e6, runtime.maxMemory() / 1e6);
+    }
+
+    /**
+     * A daemon thread that samples the used heap until it is interrupted and keeps the largest value.
+     */
+    private static final class HeapSampler extends Thread {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private volatile long peakBytes;
+
+        /**
+         * Constructs a new HeapSampler object.
+         */
+        private HeapSampler() {
+            super("heap-sampler");
+            setDaemon(true);
+        }
+
+        /**
+         * Samples the heap every {@value LoadTest#HEAP_SAMPLE_MILLIS} ms until interrupted.
+         */
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    sample();
+                    Thread.sleep(HEAP_SAMPLE_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                sample();
+            }
+        }
+
+        /**
+         * Takes one sample.
+         */
+        private void sample() {
+            peakBytes = Math.max(peakBytes, memory.getHeapMemoryUsage().getUsed());
+        }
+
+        /**
+         * Returns the largest heap usage sampled so far.
+         *
+         * @return the peak used heap in bytes
+         */
+        private long getPeakBytes() {
+            return Math.max(peakBytes, memory.getHeapMemoryUsage().getUsed());
+        }
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 /**
  * Author: Denys Skira
  * The Main class serves as the entry point for the Sudoku game application.
@@ -8,9 +10,24 @@ public class Main {
     /**
      * The main method initializes the Sudoku game based on user input.
      *
-     * @param args Command-line arguments (not used in this implementation).
+     * @param args Command-line arguments; {@code --batch}, {@code --generate}, {@code --benchmark}, {@code --archive}, {@code --verify}, {@code --loadtest} or {@code --serve} start a headless mode instead of the game.
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            String[] modeArgs = Arrays.copyOfRange(args, 1, args.length);
+            switch (args[0]) {
+                case "--batch" -> BatchSolver.run(modeArgs);
+                case "--generate" -> PuzzleGenerationService.run(modeArgs);
+                case "--benchmark" -> SudokuBenchmark.run(modeArgs);
+                case "--archive" -> ReplayArchive.run(modeArgs);
+                case "--verify" -> ReplayVerifier.run(modeArgs);
+                case "--loadtest" -> LoadTest.run(modeArgs);
+                case "--serve" -> SudokuServer.run(modeArgs);
+                default -> System.out.println("Unknown option: " + args[0]);
+            }
+            return;
+        }
+
         System.out.println("Welcome to Sudoku!");
         System.out.println("1. Play a new game");
         System.out.println("2. Watch a replay");
@@ -18,10 +35,12 @@ public class Main {
         int choice = getUserChoice();
 
         if (choice == 1) {
+            int size = getBoardSizeChoice();
             int difficulty = getDifficultyChoice();
+            PuzzlePool.getDefault().prefetch(new GameConfig(size, difficulty, false)); // Refill while the user answers
             boolean playWithTimer = getTimerOption();
-            GameConfig config = new GameConfig(9, difficulty, playWithTimer); // 9 for standard Sudoku
-            SudokuGame game = new SudokuGame(config); // 9 for standard Sudoku
+            GameConfig config = new GameConfig(size, difficulty, playWithTimer);
+            SudokuGame game = new SudokuGame(config);
             game.startGame(config);
         } else if (choice == 2) {
             SudokuGame game = new SudokuGame(new GameConfig(9, 1, false)); // dummy config
@@ -45,6 +64,22 @@ public class Main {
         }
     }
 
+    /**
+     * getBoardSizeChoice is a helper method that gets the user's desired board size for a new game.
+     *
+     * @return The board size as an integer (4, 9, 16, 25, or 36).
+     */
+    private static int getBoardSizeChoice() {
+        while (true) {
+            int size = GameUtils.getUserInput("Enter the board size (4, 9 for standard Sudoku, 16, 25 or 36)");
+            if (size == 4 || size == 9 || size == 16 || size == 25 || size == 36) {
+                return size;
+            } else {
+                System.out.println("Invalid size. Please enter 4, 9, 16, 25 or 36.");
+            }
+        }
+    }
+
     /**
      * getDifficultyChoice is a helper method that gets the user's desired difficulty level for a new game.
      *
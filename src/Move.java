@@ -5,18 +5,32 @@ public class Move {
     private final int row;
     private final int col;
     private final int value;
+    private final long timeMillis;
 
     /**
-     * Constructs a new Move object with a given row, column, and value.
+     * Constructs a new Move object with a given row, column, and value, made at the start of the game.
      *
      * @param row   the row of the cell
      * @param col   the column of the cell
      * @param value the value to place in the cell
      */
     public Move(int row, int col, int value) {
+        this(row, col, value, 0);
+    }
+
+    /**
+     * Constructs a new Move object with a given row, column, value, and time.
+     *
+     * @param row        the row of the cell
+     * @param col        the column of the cell
+     * @param value      the value to place in the cell
+     * @param timeMillis the time the move was made, in milliseconds since the start of the game
+     */
+    public Move(int row, int col, int value, long timeMillis) {
         this.row = row;
         this.col = col;
         this.value = value;
+        this.timeMillis = timeMillis;
     }
 
     /**
@@ -45,4 +59,13 @@ public class Move {
     public int getValue() {
         return value;
     }
+
+    /**
+     * Returns the time the move was made.
+     *
+     * @return the time in milliseconds since the start of the game, or 0 if it was not recorded
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
 }
@@ -0,0 +1,217 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Solves a Sudoku puzzle on a ForkJoinPool by splitting the search tree at shallow branch points.
+ * Every candidate of the most constrained cell becomes a task with its own copy of the board;
+ * below the split depth each task runs a sequential SudokuSolver. Idle workers steal pending branches,
+ * and the first branch to find a solution raises a shared flag that stops all the others.
+ * A node limit is shared by all branches; the branch that exhausts it raises the same flag.
+ */
+public class ParallelSudokuSolver implements PuzzleSolver {
+    private final int[][] board;
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private long nodeLimit = Long.MAX_VALUE;
+    private AtomicLong nodesLeft;
+    private volatile boolean limitReached;
+
+    /**
+     * Constructs a new ParallelSudokuSolver object that runs on the common pool.
+     *
+     * @param board the Sudoku puzzle board
+     */
+    public ParallelSudokuSolver(int[][] board) {
+        this(board, ForkJoinPool.commonPool(), defaultSplitDepth(board.length));
+    }
+
+    /**
+     * Constructs a new ParallelSudokuSolver object with a given pool and split depth.
+     *
+     * @param board      the Sudoku puzzle board
+     * @param pool       the pool that runs the search tasks
+     * @param splitDepth the number of branch levels that are split into separate tasks
+     */
+    public ParallelSudokuSolver(int[][] board, ForkJoinPool pool, int splitDepth) {
+        this.board = board;
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * Returns the split depth used when none is given: deep enough on large boards to give every worker
+     * several branches to steal, and shallow on small boards where a split costs more than it saves.
+     *
+     * @param size the size of the Sudoku grid
+     * @return the default split depth
+     */
+    private static int defaultSplitDepth(int size) {
+        return size <= 9 ? 1 : 3;
+    }
+
+    /**
+     * Solves the Sudoku puzzle and returns the solved board.
+     *
+     * @return the solved Sudoku puzzle board, or null if no solution exists
+     */
+    @Override
+    public int[][] solve() {
+        nodesLeft = new AtomicLong(nodeLimit);
+        limitReached = false;
+        AtomicBoolean solved = new AtomicBoolean();
+        int[][] solution = pool.invoke(new BranchTask(copyOf(board), 0, solved));
+        if (solution == null) {
+            return null;
+        }
+        limitReached = false; // Another branch may have run out while this one finished
+        for (int row = 0; row < board.length; row++) {
+            System.arraycopy(solution[row], 0, board[row], 0, board.length);
+        }
+        return board;
+    }
+
+    /**
+     * Sets the number of search nodes, summed over all branches, after which the search gives up and
+     * returns null. Branches running at the same time may together go slightly past the limit.
+     *
+     * @param nodeLimit the maximum number of search nodes
+     */
+    @Override
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Returns whether the last call to {@link #solve()} gave up because it ran out of nodes.
+     *
+     * @return true if the node limit was reached, false otherwise
+     */
+    @Override
+    public boolean isLimitReached() {
+        return limitReached;
+    }
+
+    /**
+     * Returns a deep copy of a grid.
+     *
+     * @param grid the grid to copy
+     * @return a copy of the grid
+     */
+    private static int[][] copyOf(int[][] grid) {
+        int[][] copy = new int[grid.length][];
+        for (int row = 0; row < grid.length; row++) {
+            copy[row] = grid[row].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * A search task that owns its own copy of the board.
+     */
+    private final class BranchTask extends RecursiveTask<int[][]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[][] grid;
+        private final int depth;
+        private final AtomicBoolean solved;
+
+        /**
+         * Constructs a new BranchTask object.
+         *
+         * @param grid   the board of this branch, owned by the task
+         * @param depth  the number of split levels above this task
+         * @param solved the flag raised once any branch has found a solution or the node limit was reached
+         */
+        BranchTask(int[][] grid, int depth, AtomicBoolean solved) {
+            this.grid = grid;
+            this.depth = depth;
+            this.solved = solved;
+        }
+
+        /**
+         * Searches this branch, splitting it further while above the split depth.
+         *
+         * @return the solved board, or null if this branch has no solution or was cancelled
+         */
+        @Override
+        protected int[][] compute() {
+            if (solved.get()) {
+                return null;
+            }
+            if (depth >= splitDepth) {
+                SudokuSolver solver = new SudokuSolver(grid);
+                solver.setStopFlag(solved);
+                solver.setNodeLimit(Math.max(nodesLeft.get(), 0));
+                int[][] result = solver.solve();
+                nodesLeft.addAndGet(-solver.getNodeCount());
+                if (result != null) {
+                    solved.set(true);
+                } else if (solver.isLimitReached()) {
+                    limitReached = true;
+                    solved.set(true); // Stop the other branches too
+                }
+                return result;
+            }
+            if (nodesLeft.decrementAndGet() < 0) {
+                limitReached = true;
+                solved.set(true);
+                return null;
+            }
+
+            CandidateMasks masks = new CandidateMasks(grid);
+            if (!masks.isConsistent() || !new ConstraintPropagator(grid, masks).propagate()) {
+                return null;
+            }
+            int size = grid.length;
+            int bestRow = -1;
+            int bestCol = -1;
+            long bestCandidates = 0;
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    if (grid[row][col] != 0) {
+                        continue;
+                    }
+                    long candidates = masks.getCandidates(row, col);
+                    if (bestRow < 0 || Long.bitCount(candidates) < Long.bitCount(bestCandidates)) {
+                        bestRow = row;
+                        bestCol = col;
+                        bestCandidates = candidates;
+                    }
+                }
+            }
+            if (bestRow < 0) {
+                solved.set(true);
+                return grid; // Propagation completed the board
+            }
+
+            List<BranchTask> branches = new ArrayList<>();
+            while (bestCandidates != 0) {
+                long bit = Long.lowestOneBit(bestCandidates);
+                bestCandidates ^= bit;
+                int[][] branch = copyOf(grid);
+                branch[bestRow][bestCol] = Long.numberOfTrailingZeros(bit) + 1;
+                branches.add(new BranchTask(branch, depth + 1, solved));
+            }
+            for (int i = branches.size() - 1; i > 0; i--) {
+                branches.get(i).fork();
+            }
+            int[][] result = branches.isEmpty() ? null : branches.get(0).compute();
+            for (int i = 1; i < branches.size(); i++) {
+                BranchTask branch = branches.get(i);
+                if (result != null) {
+                    branch.cancel(false); // Drop branches nobody has started yet
+                } else {
+                    int[][] branchResult = branch.join();
+                    if (branchResult != null) {
+                        result = branchResult;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates puzzles in bulk on a pool of worker threads.
+ * Every worker owns a SudokuGenerator random source split from one seeded SplittableRandom,
+ * claims puzzles from a shared counter and hands each finished puzzle to a bounded queue.
+ * The calling thread is the single writer that drains the queue into a PuzzleWriter.
+ */
+public class PuzzleGenerationService {
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final GameConfig config;
+    private final int workers;
+    private final long seed;
+    private final long[] generatedPerWorker;
+    private final long[] busyNanosPerWorker;
+
+    /**
+     * Constructs a new PuzzleGenerationService object.
+     *
+     * @param config  the size and difficulty of the puzzles to generate
+     * @param workers the number of generator threads
+     * @param seed    the seed of the root random source, so a run can be reproduced per worker
+     */
+    public PuzzleGenerationService(GameConfig config, int workers, long seed) {
+        this.config = config;
+        this.workers = workers;
+        this.seed = seed;
+        this.generatedPerWorker = new long[workers];
+        this.busyNanosPerWorker = new long[workers];
+    }
+
+    /**
+     * Runs the generation service from command-line arguments:
+     * {@code [--size N] [--difficulty D] [--count C] [--workers W] [--seed S] [output]}.
+     * The output defaults to stdout.
+     *
+     * @param args the arguments following {@code --generate}
+     */
+    public static void run(String[] args) {
+        int size = 9;
+        int difficulty = 1;
+        long count = 1000;
+        int workers = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        String output = "-";
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--size" -> size = Integer.parseInt(args[++i]);
+                    case "--difficulty" -> difficulty = Integer.parseInt(args[++i]);
+                    case "--count" -> count = Long.parseLong(args[++i]);
+                    case "--workers" -> workers = Integer.parseInt(args[++i]);
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    default -> output = args[i];
+                }
+            }
+            SudokuBoard.boxSizeFor(size);
+            if (workers < 1 || count < 0) {
+                throw new IllegalArgumentException();
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Usage: java Main --generate [--size N] [--difficulty D] [--count C] [--workers W] [--seed S] [output]");
+            return;
+        }
+
+        PuzzleGenerationService service = new PuzzleGenerationService(new GameConfig(size, difficulty, false), workers, seed);
+        try {
+            WritableByteChannel out = output.equals("-")
+                    ? Channels.newChannel(System.out)
+                    : FileChannel.open(Path.of(output), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                long start = System.nanoTime();
+                service.generate(count, new PuzzleWriter(out, size));
+                service.printReport(count, System.nanoTime() - start);
+            } finally {
+                if (!output.equals("-")) {
+                    out.close(); // Leave stdout open
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Generation interrupted.");
+        }
+    }
+
+    /**
+     * Generates a number of puzzles and writes them in the order they are finished.
+     *
+     * @param count  the number of puzzles to generate
+     * @param writer the destination of the puzzles; flushed but not closed
+     * @throws IOException          if writing fails or a worker fails
+     * @throws InterruptedException if the calling thread is interrupted while waiting for puzzles
+     */
+    public void generate(long count, PuzzleWriter writer) throws IOException, InterruptedException {
+        BlockingQueue<int[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicLong remaining = new AtomicLong(count);
+        SplittableRandom root = new SplittableRandom(seed);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            int worker = w;
+            SplittableRandom random = root.split();
+            futures.add(pool.submit(() -> {
+                produce(worker, random, remaining, queue);
+                return null;
+            }));
+        }
+        pool.shutdown();
+        try {
+            for (long written = 0; written < count; ) {
+                int[] puzzle = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (puzzle != null) {
+                    writer.write(puzzle);
+                    written++;
+                } else {
+                    checkWorkers(futures);
+                }
+            }
+            writer.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Worker loop: claims puzzles from the shared counter until none are left and queues each one.
+     *
+     * @param worker    the index of the worker
+     * @param random    the worker's own random source
+     * @param remaining the number of puzzles not yet claimed by any worker
+     * @param queue     the queue feeding the writer
+     * @throws InterruptedException if the worker is interrupted while the queue is full
+     */
+    private void produce(int worker, SplittableRandom random, AtomicLong remaining, BlockingQueue<int[]> queue)
+            throws InterruptedException {
+        int size = config.getSize();
+        while (remaining.getAndDecrement() > 0) {
+            long start = System.nanoTime();
+            int[][] grid = new SudokuGenerator(config, random).getSudokuGrid();
+            int[] cells = new int[size * size];
+            for (int row = 0; row < size; row++) {
+                System.arraycopy(grid[row], 0, cells, row * size, size);
+            }
+            busyNanosPerWorker[worker] += System.nanoTime() - start;
+            generatedPerWorker[worker]++;
+            queue.put(cells);
+        }
+    }
+
+    /**
+     * Rethrows the failure of any worker that has stopped abnormally.
+     *
+     * @param futures the futures of the workers
+     * @throws IOException if a worker failed
+     */
+    private static void checkWorkers(List<Future<?>> futures) throws IOException {
+        for (Future<?> future : futures) {
+            if (future.isDone()) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IOException("Generator worker failed", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the overall and per-worker throughput to stderr.
+     * Per-worker figures only count the time spent generating, not the time blocked on a full queue.
+     *
+     * @param count        the number of puzzles generated
+     * @param elapsedNanos the wall-clock time of the whole run
+     */
+    public void printReport(long count, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.err.printf("Generated %d puzzles (size %d, difficulty %d) with %d workers in %.3f s: %.1f puzzles/sec%n",
+                count, config.getSize(), config.getDifficulty(), workers, seconds, seconds > 0 ? count / seconds : 0.0);
+        for (int w = 0; w < workers; w++) {
+            double busySeconds = busyNanosPerWorker[w] / 1e9;
+            System.err.printf("  worker %d: %d puzzles, %.1f puzzles/sec%n",
+                    w, generatedPerWorker[w], busySeconds > 0 ? generatedPerWorker[w] / busySeconds : 0.0);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a pool of ready puzzles per board size and difficulty, so a new game does not wait for the generator.
+ * Whenever a pool drops below a low-water mark, a single low-priority daemon thread generates puzzles until
+ * it is full again. Each pool is read from a file in the pool directory the first time it is used, and the
+ * puzzles left over are written back by {@link #save()}, so the next run starts warm.
+ * The pool is thread-safe.
+ */
+public class PuzzlePool {
+    /**
+     * The number of puzzles below which a pool is refilled.
+     */
+    private static final int LOW_WATER = 2;
+
+    /**
+     * The number of puzzles a refill generates up to.
+     */
+    private static final int CAPACITY = 6;
+
+    private static PuzzlePool defaultPool;
+
+    private final Path directory;
+    private final Map<String, ArrayDeque<int[][]>> pools;
+    private final Set<String> refilling;
+    private final ExecutorService refiller;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs a new PuzzlePool object persisted in a given directory.
+     *
+     * @param directory the directory holding one file of puzzles per size and difficulty
+     */
+    public PuzzlePool(Path directory) {
+        this.directory = directory;
+        this.pools = new HashMap<>();
+        this.refilling = new HashSet<>();
+        this.refiller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "puzzle-pool-refill");
+            thread.setDaemon(true); // Never keeps the game from exiting
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the pool used by the interactive game, kept in the {@code puzzle-pool} directory.
+     * The first call registers a shutdown hook that saves the pool.
+     *
+     * @return the shared pool
+     */
+    public static synchronized PuzzlePool getDefault() {
+        if (defaultPool == null) {
+            PuzzlePool pool = new PuzzlePool(Path.of("puzzle-pool"));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    pool.save();
+                } catch (IOException e) {
+                    System.out.println("Error: Could not save the puzzle pool.");
+                }
+            }));
+            defaultPool = pool;
+        }
+        return defaultPool;
+    }
+
+    /**
+     * Takes a puzzle from the pool, or generates one on the calling thread if the pool is empty.
+     * Either way a refill is started if the pool is running low.
+     *
+     * @param config the size and difficulty of the puzzle
+     * @return the puzzle, with 0 for empty cells
+     */
+    public int[][] take(GameConfig config) {
+        int[][] puzzle;
+        synchronized (this) {
+            puzzle = poolFor(config).poll();
+            if (puzzle != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        refillIfLow(config);
+        return puzzle != null ? puzzle : new SudokuGenerator(config).getSudokuGrid();
+    }
+
+    /**
+     * Loads the pool of a configuration and starts a refill if it is running low, without taking a puzzle.
+     * Calling this as soon as the size and difficulty are known gives the refill a head start.
+     *
+     * @param config the size and difficulty of the puzzles
+     */
+    public void prefetch(GameConfig config) {
+        synchronized (this) {
+            poolFor(config);
+        }
+        refillIfLow(config);
+    }
+
+    /**
+     * Returns the number of ready puzzles for a configuration.
+     *
+     * @param config the size and difficulty of the puzzles
+     * @return the number of puzzles in the pool
+     */
+    public synchronized int available(GameConfig config) {
+        return poolFor(config).size();
+    }
+
+    /**
+     * Returns the number of puzzles taken from the pool.
+     *
+     * @return the hit count
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of puzzles that had to be generated on the calling thread.
+     *
+     * @return the miss count
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Writes every pool used so far to its file in the pool directory, replacing the old file atomically.
+     *
+     * @throws IOException if a file cannot be written
+     */
+    public void save() throws IOException {
+        Map<String, List<int[][]>> copy = new HashMap<>();
+        synchronized (this) {
+            for (Map.Entry<String, ArrayDeque<int[][]>> entry : pools.entrySet()) {
+                copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+        }
+        Files.createDirectories(directory);
+        for (Map.Entry<String, List<int[][]>> entry : copy.entrySet()) {
+            List<int[][]> puzzles = entry.getValue();
+            if (puzzles.isEmpty()) {
+                Files.deleteIfExists(fileFor(entry.getKey()));
+                continue;
+            }
+            Path temp = directory.resolve(entry.getKey() + ".tmp");
+            try (PuzzleWriter writer = new PuzzleWriter(FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), puzzles.get(0).length)) {
+                for (int[][] puzzle : puzzles) {
+                    writer.write(puzzle);
+                }
+            }
+            Files.move(temp, fileFor(entry.getKey()), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Returns the pool of a configuration, reading it from its file on first use.
+     * A missing or unreadable file gives an empty pool. Must be called while holding the lock.
+     *
+     * @param config the size and difficulty of the puzzles
+     * @return the pool
+     */
+    private ArrayDeque<int[][]> poolFor(GameConfig config) {
+        String key = keyFor(config);
+        ArrayDeque<int[][]> pool = pools.get(key);
+        if (pool == null) {
+            pool = new ArrayDeque<>();
+            load(key, config.getSize(), pool);
+            pools.put(key, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Reads the saved puzzles of a pool.
+     *
+     * @param key  the key of the pool
+     * @param size the size of the Sudoku grid
+     * @param pool the pool that receives the puzzles
+     */
+    private void load(String key, int size, ArrayDeque<int[][]> pool) {
+        try (FileChannel channel = FileChannel.open(fileFor(key), StandardOpenOption.READ)) {
+            PuzzleReader reader = new PuzzleReader(channel, size);
+            while (reader.next()) {
+                int[] cells = reader.getCells();
+                int[][] puzzle = new int[size][size];
+                for (int row = 0; row < size; row++) {
+                    System.arraycopy(cells, row * size, puzzle[row], 0, size);
+                }
+                pool.add(puzzle);
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing saved yet: start cold
+        } catch (IOException e) {
+            pool.clear(); // Unreadable file: start cold, the next save replaces it
+        }
+    }
+
+    /**
+     * Starts a background refill of a pool that has dropped below the low-water mark,
+     * unless one is already running for it.
+     *
+     * @param config the size and difficulty of the puzzles
+     */
+    private void refillIfLow(GameConfig config) {
+        String key = keyFor(config);
+        synchronized (this) {
+            if (poolFor(config).size() >= LOW_WATER || !refilling.add(key)) {
+                return;
+            }
+        }
+        GameConfig refillConfig = new GameConfig(config.getSize(), config.getDifficulty(), false);
+        refiller.execute(() -> {
+            try {
+                while (true) {
+                    synchronized (this) {
+                        if (pools.get(key).size() >= CAPACITY) {
+                            return;
+                        }
+                    }
+                    int[][] puzzle = new SudokuGenerator(refillConfig).getSudokuGrid();
+                    synchronized (this) {
+                        pools.get(key).add(puzzle);
+                    }
+                }
+            } finally {
+                synchronized (this) {
+                    refilling.remove(key);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the key of a configuration, which is also the base name of its file.
+     *
+     * @param config the size and difficulty of the puzzles
+     * @return the key, e.g. {@code 9x9-difficulty2}
+     */
+    private static String keyFor(GameConfig config) {
+        return config.getSize() + "x" + config.getSize() + "-difficulty" + config.getDifficulty();
+    }
+
+    /**
+     * Returns the file of a pool.
+     *
+     * @param key the key of the pool
+     * @return the path of the file
+     */
+    private Path fileFor(String key) {
+        return directory.resolve(key + ".txt");
+    }
+}
@@ -0,0 +1,193 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Streams Sudoku puzzles from a byte channel into a reusable cell buffer.
+ * Two layouts are accepted and may be mixed in one input:
+ * a single line of size * size characters (for boards up to 9x9, with '0' or '.' for empty cells),
+ * or size lines of size whitespace-separated numbers, as in a saved replay.
+ * Any other line (such as the elapsed time or the moves of a replay) is skipped.
+ */
+public class PuzzleReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final int size;
+    private final ByteBuffer buffer;
+    private final int[] cells;
+    private final int[] row;
+    private byte[] line;
+    private int lineLength;
+    private int rowsRead;
+    private boolean endOfInput;
+    private long linesRead;
+
+    /**
+     * Constructs a new PuzzleReader object reading puzzles of a given size from a channel.
+     *
+     * @param channel the channel to read from
+     * @param size    the size of the Sudoku grid (e.g., 9 for standard Sudoku)
+     */
+    public PuzzleReader(ReadableByteChannel channel, int size) {
+        this.channel = channel;
+        this.size = size;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.buffer.flip(); // Start empty
+        this.cells = new int[size * size];
+        this.row = new int[size];
+        this.line = new byte[Math.max(256, 4 * size * size)];
+    }
+
+    /**
+     * Reads the next puzzle into the cell buffer.
+     *
+     * @return true if a puzzle was read, false at the end of the input
+     * @throws IOException if reading from the channel fails
+     */
+    public boolean next() throws IOException {
+        while (readLine()) {
+            if (parseLine()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the cell buffer holding the last puzzle read, in row-major order with 0 for empty cells.
+     * The buffer is reused, so its content changes on the next call to {@link #next()}.
+     *
+     * @return the cell buffer
+     */
+    public int[] getCells() {
+        return cells;
+    }
+
+    /**
+     * Returns the number of input lines consumed so far.
+     *
+     * @return the line count
+     */
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    /**
+     * Reads the next line of input into the line buffer, without its line terminator.
+     *
+     * @return true if a line was read, false at the end of the input
+     * @throws IOException if reading from the channel fails
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        while (true) {
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    linesRead++;
+                    return true;
+                }
+                if (b != '\r') {
+                    if (lineLength == line.length) {
+                        byte[] grown = new byte[line.length * 2];
+                        System.arraycopy(line, 0, grown, 0, lineLength);
+                        line = grown;
+                    }
+                    line[lineLength++] = b;
+                }
+            }
+            if (endOfInput) {
+                if (lineLength > 0) {
+                    linesRead++;
+                    return true; // Last line without a terminator
+                }
+                return false;
+            }
+            buffer.clear();
+            if (channel.read(buffer) < 0) {
+                endOfInput = true;
+            }
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Interprets the current line as a whole puzzle or as one row of a multi-line puzzle.
+     *
+     * @return true if the line completed a puzzle, false otherwise
+     */
+    private boolean parseLine() {
+        if (lineLength == 0) {
+            return false; // Blank lines separate puzzles
+        }
+        if (lineLength == cells.length && size <= 9 && parseCompactLine()) {
+            rowsRead = 0;
+            return true;
+        }
+        if (!parseRow()) {
+            rowsRead = 0; // Not part of a puzzle, so drop any partial one
+            return false;
+        }
+        System.arraycopy(row, 0, cells, rowsRead * size, size);
+        rowsRead++;
+        if (rowsRead == size) {
+            rowsRead = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Parses the current line as a puzzle written as one character per cell.
+     *
+     * @return true if the line is a valid compact puzzle, false otherwise
+     */
+    private boolean parseCompactLine() {
+        for (int i = 0; i < lineLength; i++) {
+            byte b = line[i];
+            if (b == '.') {
+                cells[i] = 0;
+            } else if (b >= '0' && b <= '0' + size) {
+                cells[i] = b - '0';
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the current line as size whitespace-separated values into the row buffer.
+     *
+     * @return true if the line is a valid row, false otherwise
+     */
+    private boolean parseRow() {
+        int values = 0;
+        int i = 0;
+        while (i < lineLength) {
+            byte b = line[i];
+            if (b == ' ' || b == '\t') {
+                i++;
+                continue;
+            }
+            if (values == size) {
+                return false; // Too many values
+            }
+            int value = 0;
+            int start = i;
+            while (i < lineLength && line[i] >= '0' && line[i] <= '9') {
+                value = value * 10 + (line[i] - '0');
+                if (value > size) {
+                    return false;
+                }
+                i++;
+            }
+            if (i == start || (i < lineLength && line[i] != ' ' && line[i] != '\t')) {
+                return false; // Not a number
+            }
+            row[values++] = value;
+        }
+        return values == size;
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * Common contract for the engines that can solve a Sudoku puzzle.
+ */
+public interface PuzzleSolver {
+    /**
+     * Solves the puzzle the solver was constructed with and returns the solved board.
+     *
+     * @return the solved Sudoku puzzle board, or null if no solution exists or the node limit was reached
+     */
+    int[][] solve();
+
+    /**
+     * Sets the number of search nodes after which {@link #solve()} gives up and returns null.
+     *
+     * @param nodeLimit the maximum number of search nodes
+     */
+    void setNodeLimit(long nodeLimit);
+
+    /**
+     * Returns whether the last call to {@link #solve()} gave up because it ran out of nodes,
+     * in which case its null result says nothing about whether the puzzle has a solution.
+     *
+     * @return true if the node limit was reached, false otherwise
+     */
+    boolean isLimitReached();
+}
@@ -0,0 +1,120 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes Sudoku grids to a byte channel through one reusable buffer.
+ * Boards up to 9x9 are written as a single line of digits with '.' for empty cells;
+ * larger boards are written as size lines of space-separated numbers followed by a blank line.
+ */
+public class PuzzleWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] NO_SOLUTION = "No solution\n".getBytes();
+
+    private final WritableByteChannel channel;
+    private final int size;
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructs a new PuzzleWriter object writing grids of a given size to a channel.
+     *
+     * @param channel the channel to write to
+     * @param size    the size of the Sudoku grid (e.g., 9 for standard Sudoku)
+     */
+    public PuzzleWriter(WritableByteChannel channel, int size) {
+        this.channel = channel;
+        this.size = size;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, 4 * size * size + size));
+    }
+
+    /**
+     * Writes a grid given as cells in row-major order.
+     *
+     * @param cells the cell values, with 0 for empty cells
+     * @throws IOException if writing to the channel fails
+     */
+    public void write(int[] cells) throws IOException {
+        ensureCapacity(4 * size * size + size + 1);
+        if (size <= 9) {
+            for (int cell : cells) {
+                buffer.put(cell == 0 ? (byte) '.' : (byte) ('0' + cell));
+            }
+            buffer.put((byte) '\n');
+            return;
+        }
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int value = cells[row * size + col];
+                if (col > 0) {
+                    buffer.put((byte) ' ');
+                }
+                if (value >= 10) {
+                    buffer.put((byte) ('0' + value / 10));
+                }
+                buffer.put((byte) ('0' + value % 10));
+            }
+            buffer.put((byte) '\n');
+        }
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Writes a grid given as a 2D array.
+     *
+     * @param grid the grid, with 0 for empty cells
+     * @throws IOException if writing to the channel fails
+     */
+    public void write(int[][] grid) throws IOException {
+        int[] cells = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(grid[row], 0, cells, row * size, size);
+        }
+        write(cells);
+    }
+
+    /**
+     * Writes the marker line used for a puzzle without a solution.
+     *
+     * @throws IOException if writing to the channel fails
+     */
+    public void writeNoSolution() throws IOException {
+        ensureCapacity(NO_SOLUTION.length);
+        buffer.put(NO_SOLUTION);
+    }
+
+    /**
+     * Writes out everything buffered so far.
+     *
+     * @throws IOException if writing to the channel fails
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flushes the buffer and closes the channel.
+     *
+     * @throws IOException if writing to or closing the channel fails
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Flushes the buffer if fewer than a given number of bytes are free.
+     *
+     * @param bytes the number of bytes about to be written
+     * @throws IOException if writing to the channel fails
+     */
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
@@ -8,6 +8,7 @@ public class Replay {
     private final int[][] board;
     private final List<Move> moves;
     private final String elapsedTime;
+    private final long seed;
 
     /**
      * Constructs a new Replay object with a given board, moves, and elapsed time.
@@ -17,19 +18,33 @@ public class Replay {
      * @param elapsedTime the elapsed time of the game
      */
     public Replay(int[][] board, List<Move> moves, String elapsedTime) {
+        this(board, moves, elapsedTime, 0);
+    }
+
+    /**
+     * Constructs a new Replay object with a given board, moves, elapsed time, and generator seed.
+     *
+     * @param board       the Sudoku puzzle board
+     * @param moves       the list of moves made during the game
+     * @param elapsedTime the elapsed time of the game
+     * @param seed        the seed the puzzle was generated from, or 0 if it is not known
+     */
+    public Replay(int[][] board, List<Move> moves, String elapsedTime, long seed) {
         this.board = board;
         this.moves = new ArrayList<>(moves);
         this.elapsedTime = elapsedTime;
+        this.seed = seed;
     }
 
     /**
-     * Constructs a new Replay object with a given list of moves and elapsed time.
+     * Constructs a new Replay object on an empty board with a given size, list of moves, and elapsed time.
      *
+     * @param size        the size of the Sudoku board
      * @param moves       the list of moves made during the game
      * @param elapsedTime the elapsed time of the game
      */
-    public Replay(List<Move> moves, String elapsedTime) {
-        this(new int[9][9], moves, elapsedTime);
+    public Replay(int size, List<Move> moves, String elapsedTime) {
+        this(new int[size][size], moves, elapsedTime);
     }
 
     /**
@@ -58,4 +73,13 @@ public class Replay {
     public String getElapsedTime() {
         return elapsedTime;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the seed the puzzle was generated from.
+     *
+     * @return the seed, or 0 if it is not known
+     */
+    public long getSeed() {
+        return seed;
+    }
+}
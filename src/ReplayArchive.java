@@ -0,0 +1,577 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Stores many replays in one append-only segment file with a sidecar index file.
+ * The segment holds one record per replay: its length, the CRC32 of its data, then the replay in the
+ * binary format of ReplayFiles. The index holds one fixed-size entry per replay with its offset, length
+ * and metadata (board size, difficulty, move count and duration), and a replay's id is the position of
+ * its entry. The whole index is kept in memory, so fetching a replay by id takes one positioned read.
+ *
+ * <p>Appends are serialized by a lock inside the process and by a file lock across processes; the
+ * replay is encoded before either lock is taken. Archives opened more than once on the same files in one
+ * process share the in-process lock, since the JVM refuses a second file lock on a file it already locks. A record is always written before its index entry,
+ * so a crash can only leave a torn or unindexed tail, which {@link #open(Path)} cuts off.
+ * The archive is thread-safe.
+ */
+public class ReplayArchive implements AutoCloseable {
+    /**
+     * The file extension of segment files.
+     */
+    public static final String SEGMENT_EXTENSION = ".seg";
+
+    /**
+     * The file extension of index files.
+     */
+    public static final String INDEX_EXTENSION = ".idx";
+
+    private static final long SEGMENT_MAGIC = 0x53444B4153454731L; // "SDKASEG1"
+    private static final long INDEX_MAGIC = 0x53444B4149445831L; // "SDKAIDX1"
+    private static final int HEADER_SIZE = Long.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES; // Length and CRC32
+    private static final int ENTRY_SIZE = 40; // Id, offset, length, move count, duration, size, difficulty, CRC32
+    private static final int RECOVERY_CHUNK = 4096 * ENTRY_SIZE;
+
+    /**
+     * The in-process append lock of every index file opened so far, by real path.
+     */
+    private static final Map<Path, Object> APPEND_LOCKS = new ConcurrentHashMap<>();
+
+    private final FileChannel segment;
+    private final FileChannel index;
+    private final List<Entry> entries;
+    private final Object appendLock;
+    private long segmentEnd;
+    private long recoveredBytes;
+
+    /**
+     * Constructs a new ReplayArchive object over open segment and index channels.
+     *
+     * @param segment    the segment channel
+     * @param index      the index channel
+     * @param appendLock the in-process lock shared by all archives on these files
+     */
+    private ReplayArchive(FileChannel segment, FileChannel index, Object appendLock) {
+        this.segment = segment;
+        this.index = index;
+        this.entries = new ArrayList<>();
+        this.appendLock = appendLock;
+    }
+
+    /**
+     * Opens an archive, creating its files if they do not exist and cutting off any torn tail
+     * left by an appender that crashed.
+     *
+     * @param base the path of the archive without extension; the files are {@code base.seg} and {@code base.idx}
+     * @return the open archive
+     * @throws IOException if the files cannot be opened or are not an archive
+     */
+    public static ReplayArchive open(Path base) throws IOException {
+        FileChannel segment = FileChannel.open(Path.of(base + SEGMENT_EXTENSION),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Path indexPath = Path.of(base + INDEX_EXTENSION);
+        FileChannel index;
+        Object appendLock;
+        try {
+            index = FileChannel.open(indexPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            segment.close();
+            throw e;
+        }
+        try {
+            appendLock = APPEND_LOCKS.computeIfAbsent(indexPath.toRealPath(), path -> new Object());
+        } catch (IOException e) {
+            segment.close();
+            index.close();
+            throw e;
+        }
+        ReplayArchive archive = new ReplayArchive(segment, index, appendLock);
+        try {
+            synchronized (appendLock) {
+                FileLock lock = index.lock();
+                try {
+                    archive.recover();
+                } finally {
+                    lock.release();
+                }
+            }
+        } catch (IOException e) {
+            archive.close();
+            throw e;
+        }
+        return archive;
+    }
+
+    /**
+     * Runs the archive tool from command-line arguments:
+     * {@code ARCHIVE import FILE...} appends replay files in either format,
+     * {@code ARCHIVE list} prints the index, and {@code ARCHIVE export ID FILE} writes one replay as a binary file.
+     *
+     * @param args the arguments following {@code --archive}
+     */
+    public static void run(String[] args) {
+        if (args.length < 2 || !(args[1].equals("import") || args[1].equals("list")
+                || args[1].equals("export") && args.length == 4)) {
+            System.err.println("Usage: java Main --archive ARCHIVE import FILE... | list | export ID FILE");
+            return;
+        }
+        try (ReplayArchive archive = open(Path.of(args[0]))) {
+            if (archive.getRecoveredBytes() > 0) {
+                System.err.println("Recovered archive: cut off a torn tail of " + archive.getRecoveredBytes() + " bytes");
+            }
+            switch (args[1]) {
+                case "import" -> {
+                    int imported = 0;
+                    for (int i = 2; i < args.length; i++) {
+                        try {
+                            archive.append(ReplayFiles.load(new File(args[i])), 0);
+                            imported++;
+                        } catch (IOException e) {
+                            System.err.println("Error: " + args[i] + ": " + e.getMessage());
+                        }
+                    }
+                    System.err.println("Imported " + imported + " replays; the archive holds " + archive.size());
+                }
+                case "list" -> {
+                    System.out.println("id size difficulty moves duration_ms bytes");
+                    for (long id = 0; id < archive.size(); id++) {
+                        Entry entry = archive.getEntry(id);
+                        System.out.printf("%d %d %d %d %d %d%n", id, entry.getSize(), entry.getDifficulty(),
+                                entry.getMoveCount(), entry.getDurationMillis(), entry.getRecordLength());
+                    }
+                }
+                default -> ReplayFiles.saveBinary(archive.get(Long.parseLong(args[2])), new File(args[3]));
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends a replay to the archive.
+     *
+     * @param replay     the replay to append
+     * @param difficulty the difficulty level the puzzle was generated with, or 0 if it is not known
+     * @return the id of the replay
+     * @throws IOException if writing to the archive fails
+     */
+    public long append(Replay replay, int difficulty) throws IOException {
+        ByteBuffer data = ReplayFiles.encode(replay);
+        int length = data.remaining();
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate());
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+        record.putInt(length).putInt((int) crc.getValue()).put(data).flip();
+        List<Move> moves = replay.getMoves();
+        long duration = moves.isEmpty() ? 0 : moves.get(moves.size() - 1).getTimeMillis();
+
+        synchronized (appendLock) {
+            FileLock lock = index.lock();
+            try {
+                readNewEntries(); // Other processes may have appended since our last look
+                long offset = segmentEnd;
+                writeFully(segment, record, offset);
+                Entry entry = new Entry(entries.size(), offset, length, replay.getBoard().length, difficulty,
+                        moves.size(), duration);
+                ByteBuffer encoded = ByteBuffer.allocate(ENTRY_SIZE);
+                entry.writeTo(encoded);
+                writeFully(index, encoded.flip(), HEADER_SIZE + entry.id * ENTRY_SIZE);
+                synchronized (this) {
+                    entries.add(entry);
+                    segmentEnd = offset + RECORD_HEADER_SIZE + length;
+                }
+                return entry.id;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Reads a replay by id with one positioned read.
+     *
+     * @param id the id of the replay
+     * @return the replay
+     * @throws IOException if the id is unknown or the record is corrupt
+     */
+    public Replay get(long id) throws IOException {
+        return ReplayFiles.decode(read(id));
+    }
+
+    /**
+     * Reads the encoded data of a replay by id with one positioned read, without decoding it.
+     *
+     * @param id the id of the replay
+     * @return a buffer holding the replay in the binary format of ReplayFiles
+     * @throws IOException if the id is unknown or the record is corrupt
+     */
+    public ByteBuffer read(long id) throws IOException {
+        Entry entry = getEntry(id);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + entry.length);
+        readFully(segment, record, entry.offset);
+        record.flip();
+        int length = record.getInt();
+        int expectedCrc = record.getInt();
+        CRC32 crc = new CRC32();
+        crc.update(record.duplicate());
+        if (length != entry.length || (int) crc.getValue() != expectedCrc) {
+            throw new IOException("Corrupt replay record " + id);
+        }
+        return record.slice();
+    }
+
+    /**
+     * Returns the index entry of a replay, looking for entries appended by other processes if the id is not known yet.
+     *
+     * @param id the id of the replay
+     * @return the entry with the replay's location and metadata
+     * @throws IOException if the id is unknown
+     */
+    public Entry getEntry(long id) throws IOException {
+        synchronized (this) {
+            if (id >= 0 && id < entries.size()) {
+                return entries.get((int) id);
+            }
+        }
+        refresh();
+        synchronized (this) {
+            if (id >= 0 && id < entries.size()) {
+                return entries.get((int) id);
+            }
+        }
+        throw new IOException("No replay with id " + id);
+    }
+
+    /**
+     * Returns the number of replays in the archive, as far as this process has seen.
+     *
+     * @return the number of replays
+     */
+    public synchronized long size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of bytes cut off the end of the files when the archive was opened.
+     *
+     * @return the size of the torn tail, 0 if the archive was closed cleanly
+     */
+    public long getRecoveredBytes() {
+        return recoveredBytes;
+    }
+
+    /**
+     * Loads the index entries appended by other processes since this archive last read the index.
+     *
+     * @throws IOException if the index cannot be read
+     */
+    public void refresh() throws IOException {
+        synchronized (appendLock) {
+            FileLock lock = index.lock(0, Long.MAX_VALUE, true);
+            try {
+                readNewEntries();
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Forces both files to the storage device, so every replay appended so far survives a crash.
+     *
+     * @throws IOException if the files cannot be forced
+     */
+    public void sync() throws IOException {
+        segment.force(false);
+        index.force(false);
+    }
+
+    /**
+     * Closes both files.
+     *
+     * @throws IOException if a file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            segment.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * Checks the headers, loads the valid index entries and truncates both files after the last replay whose
+     * entry and record are intact. Must be called while holding the append lock and the file lock.
+     *
+     * @throws IOException if the files cannot be read or are not an archive
+     */
+    private void recover() throws IOException {
+        long segmentSize = segment.size();
+        long indexSize = index.size();
+        if (segmentSize <= HEADER_SIZE && indexSize < HEADER_SIZE) {
+            // New archive, or one whose creation was cut short
+            writeFully(segment, ByteBuffer.allocate(HEADER_SIZE).putLong(0, SEGMENT_MAGIC), 0);
+            writeFully(index, ByteBuffer.allocate(HEADER_SIZE).putLong(0, INDEX_MAGIC), 0);
+            segmentEnd = HEADER_SIZE;
+            return;
+        }
+        checkMagic(segment, SEGMENT_MAGIC);
+        checkMagic(index, INDEX_MAGIC);
+        segmentEnd = HEADER_SIZE;
+        readNewEntries();
+
+        // An entry can only be written after its record, but the OS may flush pages out of order
+        while (!entries.isEmpty() && !isRecordIntact(entries.get(entries.size() - 1))) {
+            Entry torn = entries.remove(entries.size() - 1);
+            segmentEnd = torn.offset;
+        }
+        long validIndexSize = HEADER_SIZE + (long) entries.size() * ENTRY_SIZE;
+        recoveredBytes = (indexSize - validIndexSize) + (segment.size() - segmentEnd);
+        if (recoveredBytes > 0) {
+            index.truncate(validIndexSize);
+            segment.truncate(segmentEnd);
+        }
+    }
+
+    /**
+     * Reads index entries past the ones already loaded, stopping at the first torn, corrupt or dangling entry.
+     * Must be called while holding the append lock and a file lock.
+     *
+     * @throws IOException if the index cannot be read
+     */
+    private void readNewEntries() throws IOException {
+        long segmentSize = segment.size();
+        long position = HEADER_SIZE + (long) entries.size() * ENTRY_SIZE;
+        long end = index.size();
+        ByteBuffer chunk = ByteBuffer.allocate(RECOVERY_CHUNK);
+        List<Entry> loaded = new ArrayList<>();
+        long nextOffset = segmentEnd;
+        boolean valid = true;
+        while (valid && end - position >= ENTRY_SIZE) {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), (end - position) / ENTRY_SIZE * ENTRY_SIZE));
+            readFully(index, chunk, position);
+            chunk.flip();
+            while (chunk.remaining() >= ENTRY_SIZE) {
+                Entry entry = Entry.readFrom(chunk, entries.size() + loaded.size());
+                if (entry == null || entry.offset != nextOffset
+                        || entry.offset + RECORD_HEADER_SIZE + entry.length > segmentSize) {
+                    valid = false;
+                    break;
+                }
+                loaded.add(entry);
+                nextOffset = entry.offset + RECORD_HEADER_SIZE + entry.length;
+                position += ENTRY_SIZE;
+            }
+        }
+        synchronized (this) {
+            entries.addAll(loaded);
+            segmentEnd = nextOffset;
+        }
+    }
+
+    /**
+     * Checks that the record of an entry has the expected length and CRC.
+     *
+     * @param entry the entry
+     * @return true if the record is intact, false otherwise
+     * @throws IOException if the segment cannot be read
+     */
+    private boolean isRecordIntact(Entry entry) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + entry.length);
+        readFully(segment, record, entry.offset);
+        record.flip();
+        int length = record.getInt();
+        int expectedCrc = record.getInt();
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return length == entry.length && (int) crc.getValue() == expectedCrc;
+    }
+
+    /**
+     * Checks the magic number at the start of a file.
+     *
+     * @param channel the file
+     * @param magic   the expected magic number
+     * @throws IOException if the file does not start with the magic number
+     */
+    private static void checkMagic(FileChannel channel, long magic) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        if (header.getLong(0) != magic) {
+            throw new IOException("Not a replay archive");
+        }
+    }
+
+    /**
+     * Writes a whole buffer at a position.
+     *
+     * @param channel  the file
+     * @param buffer   the bytes to write
+     * @param position the file position of the first byte
+     * @throws IOException if writing fails
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Fills a buffer from a position; usually done in one read.
+     *
+     * @param channel  the file
+     * @param buffer   the buffer to fill
+     * @param position the file position of the first byte
+     * @throws IOException if the file ends before the buffer is full
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of archive");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * The index entry of one replay: where its record is and what it contains.
+     */
+    public static final class Entry {
+        private final long id;
+        private final long offset;
+        private final int length;
+        private final int size;
+        private final int difficulty;
+        private final int moveCount;
+        private final long durationMillis;
+
+        /**
+         * Constructs a new Entry object.
+         *
+         * @param id             the id of the replay
+         * @param offset         the segment offset of the record
+         * @param length         the length of the replay data, without the record header
+         * @param size           the size of the board
+         * @param difficulty     the difficulty level, or 0 if it is not known
+         * @param moveCount      the number of moves
+         * @param durationMillis the time of the last move, in milliseconds since the start of the game
+         */
+        private Entry(long id, long offset, int length, int size, int difficulty, int moveCount, long durationMillis) {
+            this.id = id;
+            this.offset = offset;
+            this.length = length;
+            this.size = size;
+            this.difficulty = difficulty;
+            this.moveCount = moveCount;
+            this.durationMillis = durationMillis;
+        }
+
+        /**
+         * Writes the entry in its fixed-size layout, ending with the CRC32 of the preceding bytes.
+         *
+         * @param buffer the buffer to write to
+         */
+        private void writeTo(ByteBuffer buffer) {
+            int start = buffer.position();
+            buffer.putLong(id).putLong(offset).putInt(length).putInt(moveCount).putLong(durationMillis)
+                    .put((byte) size).put((byte) difficulty).putShort((short) 0); // Two reserved bytes
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), start, buffer.position() - start);
+            buffer.putInt((int) crc.getValue());
+        }
+
+        /**
+         * Reads an entry written by {@link #writeTo(ByteBuffer)}.
+         *
+         * @param buffer the buffer to read from, with at least one entry remaining
+         * @param id     the id the entry must have
+         * @return the entry, or null if it is corrupt
+         */
+        private static Entry readFrom(ByteBuffer buffer, long id) {
+            int start = buffer.position();
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), start, ENTRY_SIZE - Integer.BYTES);
+            long storedId = buffer.getLong();
+            long offset = buffer.getLong();
+            int length = buffer.getInt();
+            int moveCount = buffer.getInt();
+            long durationMillis = buffer.getLong();
+            int size = buffer.get() & 0xFF;
+            int difficulty = buffer.get(); // Signed: custom difficulties are negative
+            buffer.getShort();
+            int expectedCrc = buffer.getInt();
+            if ((int) crc.getValue() != expectedCrc || storedId != id || length < 0) {
+                return null;
+            }
+            return new Entry(id, offset, length, size, difficulty, moveCount, durationMillis);
+        }
+
+        /**
+         * Returns the id of the replay.
+         *
+         * @return the id
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Returns the size of the board.
+         *
+         * @return the size of the Sudoku grid
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the difficulty level the puzzle was generated with.
+         *
+         * @return the difficulty level, or 0 if it is not known
+         */
+        public int getDifficulty() {
+            return difficulty;
+        }
+
+        /**
+         * Returns the number of moves in the replay.
+         *
+         * @return the move count
+         */
+        public int getMoveCount() {
+            return moveCount;
+        }
+
+        /**
+         * Returns the time of the last move.
+         *
+         * @return the duration in milliseconds since the start of the game
+         */
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        /**
+         * Returns the number of bytes the replay takes in the segment, including the record header.
+         *
+         * @return the record length
+         */
+        public int getRecordLength() {
+            return RECORD_HEADER_SIZE + length;
+        }
+    }
+}
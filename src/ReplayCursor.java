@@ -0,0 +1,226 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays a binary replay move by move without decoding the whole move list.
+ * Moves are decoded from the encoded data only when the cursor reaches them and are applied the way
+ * the game replays them: a move that is not valid on the current board is skipped.
+ * Every {@value #CHECKPOINT_INTERVAL} moves the cursor keeps a snapshot of the board together with the
+ * decoder position, so seeking to any move already passed restores at most one snapshot and replays
+ * fewer than {@value #CHECKPOINT_INTERVAL} moves, and stepping backward costs the same.
+ * A cursor is not thread-safe.
+ */
+public class ReplayCursor {
+    /**
+     * The number of moves between two board checkpoints.
+     */
+    public static final int CHECKPOINT_INTERVAL = 64;
+
+    private final ByteBuffer data;
+    private final Replay header;
+    private final int size;
+    private final int moveCount;
+    private final SudokuBoard board;
+    private final List<Checkpoint> checkpoints;
+    private int position; // Number of moves played
+    private long time;
+    private Move lastMove;
+    private boolean lastMoveApplied;
+
+    /**
+     * Constructs a new ReplayCursor object over an encoded replay, positioned before the first move.
+     *
+     * @param data the replay in the binary format of ReplayFiles, from its position to its limit
+     * @throws IOException if the data is not a valid replay
+     */
+    public ReplayCursor(ByteBuffer data) throws IOException {
+        this.data = data.slice();
+        this.header = ReplayFiles.decodeHeader(this.data);
+        this.moveCount = ReplayFiles.decodeMoveCount(this.data);
+        this.size = header.getBoard().length;
+        this.board = new SudokuBoard(size);
+        this.board.setBoard(header.getBoard());
+        this.checkpoints = new ArrayList<>();
+        checkpoints.add(new Checkpoint(this));
+    }
+
+    /**
+     * Opens a cursor over a binary replay file, mapping the file into memory.
+     *
+     * @param file the replay file
+     * @return the cursor
+     * @throws IOException if the file cannot be read or is not a binary replay
+     */
+    public static ReplayCursor open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new ReplayCursor(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the replay without its moves: the start board, the elapsed time and the seed.
+     *
+     * @return the replay header
+     */
+    public Replay getHeader() {
+        return header;
+    }
+
+    /**
+     * Returns the number of moves in the replay.
+     *
+     * @return the move count
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns the number of moves played so far.
+     *
+     * @return the position, from 0 (start board) to the move count
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the board after the moves played so far. The board is owned by the cursor and changes as it moves;
+     * take a snapshot to keep it.
+     *
+     * @return the current board
+     */
+    public SudokuBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Returns the last move played.
+     *
+     * @return the last move, or null at the start of the replay
+     */
+    public Move getLastMove() {
+        return position == 0 ? null : lastMove;
+    }
+
+    /**
+     * Returns whether the last move played was valid and thus applied to the board.
+     *
+     * @return true if the last move was applied, false if it was skipped or no move was played
+     */
+    public boolean isLastMoveApplied() {
+        return position > 0 && lastMoveApplied;
+    }
+
+    /**
+     * Returns the time of the last move played.
+     *
+     * @return the time in milliseconds since the start of the game, 0 at the start of the replay
+     */
+    public long getTimeMillis() {
+        return time;
+    }
+
+    /**
+     * Plays the next move.
+     *
+     * @return the move, or null at the end of the replay
+     * @throws IOException if the move cannot be decoded
+     */
+    public Move next() throws IOException {
+        if (position == moveCount) {
+            return null;
+        }
+        Move move = ReplayFiles.decodeMove(data, size, time);
+        lastMove = move;
+        lastMoveApplied = board.isValidMove(move.getRow(), move.getCol(), move.getValue());
+        if (lastMoveApplied) {
+            board.setCellValue(move.getRow(), move.getCol(), move.getValue());
+        }
+        time = move.getTimeMillis();
+        position++;
+        if (position % CHECKPOINT_INTERVAL == 0 && position / CHECKPOINT_INTERVAL == checkpoints.size()) {
+            checkpoints.add(new Checkpoint(this));
+        }
+        return move;
+    }
+
+    /**
+     * Steps back one move.
+     *
+     * @return false if the cursor was already at the start of the replay, true otherwise
+     * @throws IOException if a move cannot be decoded
+     */
+    public boolean previous() throws IOException {
+        if (position == 0) {
+            return false;
+        }
+        seek(position - 1);
+        return true;
+    }
+
+    /**
+     * Moves the cursor so that a given number of moves have been played.
+     * Seeking backward, or forward past a checkpoint, restores the nearest checkpoint at or before the target.
+     *
+     * @param target the number of moves to have played, from 0 to the move count
+     * @throws IOException if a move cannot be decoded
+     * @throws IllegalArgumentException if the target is out of range
+     */
+    public void seek(int target) throws IOException {
+        if (target < 0 || target > moveCount) {
+            throw new IllegalArgumentException("Move " + target + " is out of range");
+        }
+        int checkpoint = Math.min(target / CHECKPOINT_INTERVAL, checkpoints.size() - 1);
+        if (target < position || position < checkpoint * CHECKPOINT_INTERVAL) {
+            restore(checkpoint);
+        }
+        while (position < target) {
+            next();
+        }
+    }
+
+    /**
+     * Resets the cursor to a checkpoint.
+     *
+     * @param index the index of the checkpoint
+     */
+    private void restore(int index) {
+        Checkpoint checkpoint = checkpoints.get(index);
+        board.restore(checkpoint.board);
+        data.position(checkpoint.dataPosition);
+        position = index * CHECKPOINT_INTERVAL;
+        time = checkpoint.time;
+        lastMove = checkpoint.lastMove;
+        lastMoveApplied = checkpoint.lastMoveApplied;
+    }
+
+    /**
+     * The state of a cursor after a multiple of {@value #CHECKPOINT_INTERVAL} moves.
+     */
+    private static final class Checkpoint {
+        private final SudokuBoard board;
+        private final int dataPosition;
+        private final long time;
+        private final Move lastMove;
+        private final boolean lastMoveApplied;
+
+        /**
+         * Constructs a new Checkpoint object holding the current state of a cursor.
+         *
+         * @param cursor the cursor
+         */
+        private Checkpoint(ReplayCursor cursor) {
+            this.board = cursor.board.snapshot();
+            this.dataPosition = cursor.data.position();
+            this.time = cursor.time;
+            this.lastMove = cursor.lastMove;
+            this.lastMoveApplied = cursor.lastMoveApplied;
+        }
+    }
+}
@@ -0,0 +1,441 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/**
+ * Reads and writes replays in two formats.
+ * The text format has one line per board row, the elapsed time, then one "row col value" line per move.
+ * The binary format (version 1) is, in order:
+ * <ul>
+ *     <li>the magic bytes {@code SDKR} and a version byte;</li>
+ *     <li>the board size as one byte and the generator seed as 8 bytes;</li>
+ *     <li>the start board, bit-packed at the fewest bits that hold the size (4 bits per cell for 9x9);</li>
+ *     <li>the elapsed time as a varint length followed by UTF-8 bytes;</li>
+ *     <li>the move count as a varint, then per move the varint {@code cell * (size + 1) + value}
+ *     and the zigzag varint of the milliseconds since the previous move.</li>
+ * </ul>
+ */
+public final class ReplayFiles {
+    /**
+     * The file extension of replays in the text format.
+     */
+    public static final String TEXT_EXTENSION = ".txt";
+
+    /**
+     * The file extension of replays in the binary format.
+     */
+    public static final String BINARY_EXTENSION = ".sdr";
+
+    private static final byte[] MAGIC = {'S', 'D', 'K', 'R'};
+    private static final byte VERSION = 1;
+
+    private ReplayFiles() {
+    }
+
+    /**
+     * Saves a replay to a text file.
+     *
+     * @param replay the replay to save
+     * @param file   the file to write
+     * @throws FileNotFoundException if the file cannot be created
+     */
+    public static void saveText(Replay replay, File file) throws FileNotFoundException {
+        try (PrintWriter writer = new PrintWriter(file)) {
+            // Write the initial board state to the first lines of the file
+            for (int[] ints : replay.getBoard()) {
+                for (int anInt : ints) {
+                    writer.printf("%d ", anInt);
+                }
+                writer.println();
+            }
+
+            // Write the elapsed time
+            writer.println(replay.getElapsedTime());
+
+            // Write the moves in the format "row col val"
+            for (Move move : replay.getMoves()) {
+                writer.printf("%d %d %d\n", move.getRow(), move.getCol(), move.getValue());
+            }
+        }
+    }
+
+    /**
+     * Loads a replay from a text file.
+     *
+     * @param file the file to read
+     * @return the loaded replay
+     * @throws FileNotFoundException if the file does not exist
+     * @throws IOException           if the file does not contain valid replay data, or a clue or move
+     *                               lies outside the board
+     */
+    public static Replay loadText(File file) throws IOException {
+        List<Move> moves = new ArrayList<>();
+        try (Scanner fileScanner = new Scanner(file)) {
+            // Read the sudoku board data; the first row tells the board size
+            String[] firstRow = fileScanner.nextLine().trim().split("\\s+");
+            int size = firstRow.length;
+            SudokuBoard.boxSizeFor(size);
+            int[][] initialBoard = new int[size][size];
+            for (int i = 0; i < size; i++) {
+                String[] rowData = i == 0 ? firstRow : fileScanner.nextLine().trim().split("\\s+");
+                for (int j = 0; j < size; j++) {
+                    initialBoard[i][j] = Integer.parseInt(rowData[j]);
+                    if (initialBoard[i][j] < 0 || initialBoard[i][j] > size) {
+                        throw new IOException("Invalid replay data");
+                    }
+                }
+            }
+
+            // Read the elapsed time line
+            String elapsedTime = fileScanner.nextLine();
+
+            // Read the moves data from the remaining lines of the file
+            while (fileScanner.hasNextLine()) {
+                String[] moveData = fileScanner.nextLine().split(" ");
+                int row = Integer.parseInt(moveData[0]);
+                int col = Integer.parseInt(moveData[1]);
+                int value = Integer.parseInt(moveData[2]);
+                if (row < 0 || row >= size || col < 0 || col >= size || value < 0 || value > size) {
+                    throw new IOException("Invalid replay data"); // Would not fit the binary format
+                }
+                moves.add(new Move(row, col, value));
+            }
+            return new Replay(initialBoard, moves, elapsedTime);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | NoSuchElementException e) {
+            throw new IOException("Invalid replay data", e);
+        }
+    }
+
+    /**
+     * Saves a replay to a binary file.
+     *
+     * @param replay the replay to save
+     * @param file   the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void saveBinary(Replay replay, File file) throws IOException {
+        ByteBuffer buffer = encode(replay);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Loads a replay from a binary file, reading it in one call through a FileChannel.
+     *
+     * @param file the file to read
+     * @return the loaded replay
+     * @throws IOException if the file cannot be read or does not contain valid replay data
+     */
+    public static Replay loadBinary(File file) throws IOException {
+        return decode(readAll(file));
+    }
+
+    /**
+     * Loads a replay from a file in either format, telling them apart by the magic bytes.
+     *
+     * @param file the file to read
+     * @return the loaded replay
+     * @throws IOException if the file cannot be read or does not contain valid replay data
+     */
+    public static Replay load(File file) throws IOException {
+        ByteBuffer buffer = readAll(file);
+        if (isBinary(buffer)) {
+            return decode(buffer);
+        }
+        return loadText(file);
+    }
+
+    /**
+     * Loads a replay file in either format as binary data, re-encoding text replays.
+     *
+     * @param file the file to read
+     * @return a buffer holding the replay in the binary format, positioned at its start
+     * @throws IOException if the file cannot be read or does not contain valid replay data
+     */
+    public static ByteBuffer loadEncoded(File file) throws IOException {
+        ByteBuffer buffer = readAll(file);
+        return isBinary(buffer) ? buffer : encode(loadText(file));
+    }
+
+    /**
+     * Encodes a replay in the binary format.
+     *
+     * @param replay the replay to encode
+     * @return a buffer holding the encoded replay, positioned at its start
+     */
+    public static ByteBuffer encode(Replay replay) {
+        int[][] board = replay.getBoard();
+        int size = board.length;
+        int bitsPerCell = bitsPerCell(size);
+        byte[] elapsedTime = replay.getElapsedTime().getBytes(StandardCharsets.UTF_8);
+        List<Move> moves = replay.getMoves();
+        ByteBuffer buffer = ByteBuffer.allocate(MAGIC.length + 10 + (size * size * bitsPerCell + 7) / 8
+                + 5 + elapsedTime.length + 5 + moves.size() * 15);
+        buffer.put(MAGIC).put(VERSION).put((byte) size).putLong(replay.getSeed());
+
+        // Start board, packed least significant bits first
+        long bits = 0;
+        int bitCount = 0;
+        for (int[] row : board) {
+            for (int value : row) {
+                bits |= (long) value << bitCount;
+                bitCount += bitsPerCell;
+                while (bitCount >= 8) {
+                    buffer.put((byte) bits);
+                    bits >>>= 8;
+                    bitCount -= 8;
+                }
+            }
+        }
+        if (bitCount > 0) {
+            buffer.put((byte) bits);
+        }
+
+        putVarint(buffer, elapsedTime.length);
+        buffer.put(elapsedTime);
+
+        putVarint(buffer, moves.size());
+        long previousTime = 0;
+        for (Move move : moves) {
+            putVarint(buffer, (move.getRow() * size + move.getCol()) * (size + 1) + move.getValue());
+            long delta = move.getTimeMillis() - previousTime;
+            putVarint(buffer, (delta << 1) ^ (delta >> 63)); // Zigzag, so a clock step back stays short
+            previousTime = move.getTimeMillis();
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Decodes a replay in the binary format.
+     *
+     * @param buffer the encoded replay, from its position to its limit
+     * @return the decoded replay
+     * @throws IOException if the buffer does not contain valid replay data
+     */
+    public static Replay decode(ByteBuffer buffer) throws IOException {
+        Replay header = decodeHeader(buffer);
+        int size = header.getBoard().length;
+        int moveCount = decodeMoveCount(buffer);
+        List<Move> moves = new ArrayList<>(moveCount);
+        long time = 0;
+        for (int i = 0; i < moveCount; i++) {
+            Move move = decodeMove(buffer, size, time);
+            moves.add(move);
+            time = move.getTimeMillis();
+        }
+        return new Replay(header.getBoard(), moves, header.getElapsedTime(), header.getSeed());
+    }
+
+    /**
+     * Decodes everything of a binary replay before the moves, leaving the buffer at the move count.
+     *
+     * @param buffer the encoded replay, positioned at its start
+     * @return a replay with the start board, elapsed time and seed but no moves
+     * @throws IOException if the buffer does not contain valid replay data
+     */
+    static Replay decodeHeader(ByteBuffer buffer) throws IOException {
+        try {
+            if (!isBinary(buffer)) {
+                throw new IOException("Invalid replay data");
+            }
+            buffer.position(buffer.position() + MAGIC.length);
+            if (buffer.get() != VERSION) {
+                throw new IOException("Unsupported replay version");
+            }
+            int size = buffer.get() & 0xFF;
+            SudokuBoard.boxSizeFor(size);
+            long seed = buffer.getLong();
+
+            int bitsPerCell = bitsPerCell(size);
+            int mask = (1 << bitsPerCell) - 1;
+            int[][] board = new int[size][size];
+            long bits = 0;
+            int bitCount = 0;
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    while (bitCount < bitsPerCell) {
+                        bits |= (long) (buffer.get() & 0xFF) << bitCount;
+                        bitCount += 8;
+                    }
+                    board[row][col] = checkValue((int) bits & mask, size);
+                    bits >>>= bitsPerCell;
+                    bitCount -= bitsPerCell;
+                }
+            }
+
+            int elapsedLength = getLength(buffer);
+            byte[] elapsedTime = new byte[elapsedLength];
+            buffer.get(elapsedTime);
+            return new Replay(board, List.of(), new String(elapsedTime, StandardCharsets.UTF_8), seed);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Invalid replay data", e);
+        }
+    }
+
+    /**
+     * Decodes the move count of a binary replay, which follows the header.
+     *
+     * @param buffer the encoded replay, positioned at the move count
+     * @return the number of moves
+     * @throws IOException if the buffer does not contain valid replay data
+     */
+    static int decodeMoveCount(ByteBuffer buffer) throws IOException {
+        try {
+            return getLength(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Invalid replay data", e);
+        }
+    }
+
+    /**
+     * Decodes the next move of a binary replay.
+     *
+     * @param buffer       the encoded replay, positioned at a move
+     * @param size         the size of the board
+     * @param previousTime the time of the previous move, or 0 for the first move
+     * @return the move
+     * @throws IOException if the buffer does not contain a valid move
+     */
+    static Move decodeMove(ByteBuffer buffer, int size, long previousTime) throws IOException {
+        try {
+            long packed = getVarint(buffer);
+            if (packed < 0 || packed >= (long) size * size * (size + 1)) {
+                throw new IOException("Invalid replay data");
+            }
+            int cell = (int) (packed / (size + 1));
+            long zigzag = getVarint(buffer);
+            long time = previousTime + ((zigzag >>> 1) ^ -(zigzag & 1));
+            return new Move(cell / size, cell % size, (int) (packed % (size + 1)), time);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Invalid replay data", e);
+        }
+    }
+
+    /**
+     * Reads a whole file into a buffer through a FileChannel.
+     *
+     * @param file the file to read
+     * @return a buffer holding the file content, positioned at its start
+     * @throws IOException if the file cannot be read
+     */
+    private static ByteBuffer readAll(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Invalid replay data");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) length);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full or the file ends
+            }
+            return buffer.flip();
+        }
+    }
+
+    /**
+     * Checks whether a buffer starts with the magic bytes of the binary format, without moving its position.
+     *
+     * @param buffer the buffer to check
+     * @return true if the buffer holds a binary replay, false otherwise
+     */
+    private static boolean isBinary(ByteBuffer buffer) {
+        if (buffer.remaining() < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(buffer.position() + i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of bits needed to store any value of a board.
+     *
+     * @param size the size of the Sudoku grid
+     * @return the bits per cell (e.g., 4 for 9x9)
+     */
+    private static int bitsPerCell(int size) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(size);
+    }
+
+    /**
+     * Checks that a decoded cell value fits the board.
+     *
+     * @param value the decoded value
+     * @param size  the size of the Sudoku grid
+     * @return the value
+     * @throws IOException if the value is larger than the size
+     */
+    private static int checkValue(int value, int size) throws IOException {
+        if (value > size) {
+            throw new IOException("Invalid replay data");
+        }
+        return value;
+    }
+
+    /**
+     * Writes an unsigned varint: 7 bits per byte, least significant group first,
+     * with the high bit set on every byte but the last.
+     *
+     * @param buffer the buffer to write to
+     * @param value  the value, treated as unsigned
+     */
+    private static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param buffer the buffer to read from
+     * @return the value
+     * @throws IOException if the varint is longer than 10 bytes
+     */
+    private static long getVarint(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid replay data");
+    }
+
+    /**
+     * Reads a varint length and checks that it does not exceed the bytes left in the buffer,
+     * so a corrupt length cannot cause a huge allocation.
+     *
+     * @param buffer the buffer to read from
+     * @return the length
+     * @throws IOException if the length is out of range
+     */
+    private static int getLength(ByteBuffer buffer) throws IOException {
+        long length = getVarint(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Invalid replay data");
+        }
+        return (int) length;
+    }
+}
@@ -0,0 +1,425 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Checks replays in bulk on a ForkJoinPool without printing any board.
+ * The replays are split into ranges that idle workers steal from each other; each replay is played
+ * through a ReplayCursor, which applies moves exactly like the game's replay viewer. A replay is reported
+ * with its illegal (skipped) moves, whether its final board is solved, and anomalies: moves on clue cells,
+ * time going backwards, moves entered faster than a human could, moves after the recorded elapsed time,
+ * or a start board that already has conflicts.
+ */
+public class ReplayVerifier {
+    /**
+     * The number of replays below which a task verifies its range itself instead of splitting it.
+     */
+    private static final int SPLIT_THRESHOLD = 8;
+
+    /**
+     * The default shortest time between two moves that is still considered human.
+     */
+    private static final long DEFAULT_MIN_MOVE_MILLIS = 100;
+
+    private static final long ONE_HOUR_MILLIS = 3_600_000;
+    private static final Pattern ELAPSED_TIME = Pattern.compile("(\\d+) minutes and (\\d+) seconds");
+
+    private final ForkJoinPool pool;
+    private final long minMoveMillis;
+
+    /**
+     * Constructs a new ReplayVerifier object.
+     *
+     * @param pool          the pool that runs the verification tasks
+     * @param minMoveMillis the shortest time between two timed moves that is not reported as too fast
+     */
+    public ReplayVerifier(ForkJoinPool pool, long minMoveMillis) {
+        this.pool = pool;
+        this.minMoveMillis = minMoveMillis;
+    }
+
+    /**
+     * Runs the verifier from command-line arguments: {@code [--workers W] [--min-move-ms MS] PATH...}.
+     * A path is a replay file, a directory searched for {@code .sdr} and {@code .txt} replays,
+     * or a replay archive given by its base path or one of its files.
+     * One line per replay goes to stdout and a summary with the throughput to stderr.
+     *
+     * @param args the arguments following {@code --verify}
+     */
+    public static void run(String[] args) {
+        int workers = Runtime.getRuntime().availableProcessors();
+        long minMoveMillis = DEFAULT_MIN_MOVE_MILLIS;
+        List<String> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--workers" -> workers = Integer.parseInt(args[++i]);
+                    case "--min-move-ms" -> minMoveMillis = Long.parseLong(args[++i]);
+                    default -> paths.add(args[i]);
+                }
+            }
+            if (workers < 1 || minMoveMillis < 0 || paths.isEmpty()) {
+                throw new IllegalArgumentException();
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Usage: java Main --verify [--workers W] [--min-move-ms MS] PATH...");
+            return;
+        }
+
+        List<ReplayArchive> archives = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            List<Source> sources = new ArrayList<>();
+            for (String path : paths) {
+                collectSources(path, sources, archives);
+            }
+            ReplayVerifier verifier = new ReplayVerifier(pool, minMoveMillis);
+            long start = System.nanoTime();
+            Result[] results = verifier.verifyAll(sources);
+            long elapsedNanos = System.nanoTime() - start;
+            for (Result result : results) {
+                System.out.println(result);
+            }
+            printReport(results, workers, elapsedNanos);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        } finally {
+            pool.shutdown();
+            for (ReplayArchive archive : archives) {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    System.err.println("Error: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifies replays in parallel.
+     *
+     * @param sources the replays to verify
+     * @return one result per replay, in the order of the sources
+     */
+    public Result[] verifyAll(List<Source> sources) {
+        Result[] results = new Result[sources.size()];
+        pool.invoke(new VerifyTask(sources, results, 0, sources.size()));
+        return results;
+    }
+
+    /**
+     * Verifies one replay on the calling thread.
+     *
+     * @param source the replay to verify
+     * @return the result
+     */
+    public Result verify(Source source) {
+        Result result = new Result(source.getName());
+        try {
+            ReplayCursor cursor = new ReplayCursor(source.load());
+            int[][] start = cursor.getHeader().getBoard();
+            if (cursor.getBoard().getConflictCount() > 0) {
+                result.anomalies.add("start board has conflicts");
+            }
+            int clueMoves = 0;
+            int fastMoves = 0;
+            int backwardMoves = 0;
+            long previousTime = 0;
+            Move move;
+            while ((move = cursor.next()) != null) {
+                if (!cursor.isLastMoveApplied()) {
+                    result.illegalMoves++;
+                }
+                if (start[move.getRow()][move.getCol()] != 0) {
+                    clueMoves++;
+                }
+                long time = move.getTimeMillis();
+                if (time < previousTime) {
+                    backwardMoves++;
+                } else if (previousTime > 0 && time - previousTime < minMoveMillis) {
+                    fastMoves++; // Only between timed moves: untimed replays have every time at 0
+                }
+                previousTime = time;
+            }
+            result.moveCount = cursor.getMoveCount();
+            result.solved = cursor.getBoard().isSolved();
+            if (clueMoves > 0) {
+                result.anomalies.add(clueMoves + " moves on clue cells");
+            }
+            if (backwardMoves > 0) {
+                result.anomalies.add(backwardMoves + " moves earlier than the move before");
+            }
+            if (fastMoves > 0) {
+                result.anomalies.add(fastMoves + " moves under " + minMoveMillis + " ms apart");
+            }
+            long elapsedMillis = parseElapsedMillis(cursor.getHeader().getElapsedTime());
+            if (elapsedMillis > 0 && cursor.getTimeMillis() < ONE_HOUR_MILLIS
+                    && cursor.getTimeMillis() > elapsedMillis + 1000) {
+                result.anomalies.add("last move after the recorded elapsed time");
+            }
+        } catch (IOException | RuntimeException e) {
+            result.error = e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+        return result;
+    }
+
+    /**
+     * Parses an elapsed time written by Timer.
+     * Timer wraps minutes at one hour, so only times under an hour can be compared with move times.
+     *
+     * @param elapsedTime the elapsed time, e.g. "3 minutes and 12 seconds"
+     * @return the elapsed time in milliseconds, or 0 if it is missing, zero or not in Timer's format
+     */
+    private static long parseElapsedMillis(String elapsedTime) {
+        Matcher matcher = ELAPSED_TIME.matcher(elapsedTime);
+        if (!matcher.matches() || matcher.group(1).length() > 2 || matcher.group(2).length() > 2) { // Also keeps parseLong in range
+            return 0;
+        }
+        return (Long.parseLong(matcher.group(1)) * 60 + Long.parseLong(matcher.group(2))) * 1000;
+    }
+
+    /**
+     * Adds the replays found at a path: the replays of an archive, the replay files under a directory,
+     * or a single replay file.
+     *
+     * @param path     the path given on the command line
+     * @param sources  the list that receives the replays
+     * @param archives the list that receives the archives opened, to be closed by the caller
+     * @throws IOException if the path does not exist or cannot be read
+     */
+    private static void collectSources(String path, List<Source> sources, List<ReplayArchive> archives)
+            throws IOException {
+        String base = path.endsWith(ReplayArchive.SEGMENT_EXTENSION) || path.endsWith(ReplayArchive.INDEX_EXTENSION)
+                ? path.substring(0, path.length() - 4) : path;
+        if (Files.isRegularFile(Path.of(base + ReplayArchive.SEGMENT_EXTENSION))) {
+            ReplayArchive archive = ReplayArchive.open(Path.of(base));
+            archives.add(archive);
+            for (long id = 0; id < archive.size(); id++) {
+                long replayId = id;
+                sources.add(new Source(base + "#" + id, () -> archive.read(replayId)));
+            }
+            return;
+        }
+
+        Path root = Path.of(path);
+        if (!Files.exists(root)) {
+            throw new IOException("File not found: " + path);
+        }
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> walk = Files.walk(root)) {
+                walk.filter(Files::isRegularFile)
+                        .filter(file -> file.toString().endsWith(ReplayFiles.BINARY_EXTENSION)
+                                || file.toString().endsWith(ReplayFiles.TEXT_EXTENSION))
+                        .sorted()
+                        .forEach(files::add);
+            }
+        } else {
+            files.add(root);
+        }
+        for (Path file : files) {
+            sources.add(new Source(file.toString(), () -> ReplayFiles.loadEncoded(file.toFile())));
+        }
+    }
+
+    /**
+     * Prints the totals and the throughput to stderr.
+     *
+     * @param results      the results of all replays
+     * @param workers      the number of worker threads
+     * @param elapsedNanos the wall-clock time of the verification
+     */
+    private static void printReport(Result[] results, int workers, long elapsedNanos) {
+        int solved = 0;
+        int withIllegalMoves = 0;
+        int withAnomalies = 0;
+        int unreadable = 0;
+        for (Result result : results) {
+            if (result.error != null) {
+                unreadable++;
+                continue;
+            }
+            solved += result.solved ? 1 : 0;
+            withIllegalMoves += result.illegalMoves > 0 ? 1 : 0;
+            withAnomalies += result.anomalies.isEmpty() ? 0 : 1;
+        }
+        double seconds = elapsedNanos / 1e9;
+        System.err.printf("Verified %d replays (solved %d, with illegal moves %d, with anomalies %d, unreadable %d)"
+                        + " with %d workers in %.3f s%n",
+                results.length, solved, withIllegalMoves, withAnomalies, unreadable, workers, seconds);
+        System.err.printf("Throughput: %.0f replays/sec%n", seconds > 0 ? results.length / seconds : 0.0);
+    }
+
+    /**
+     * A task that verifies a range of replays, splitting it in halves until it is small enough.
+     */
+    private final class VerifyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Source> sources;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a new VerifyTask object for a range of replays.
+         *
+         * @param sources the replays to verify
+         * @param results the array that receives the results
+         * @param from    the first replay of the range
+         * @param to      the end of the range, exclusive
+         */
+        private VerifyTask(List<Source> sources, Result[] results, int from, int to) {
+            this.sources = sources;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Verifies the range, or splits it and lets idle workers steal one half.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results[i] = verify(sources.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new VerifyTask(sources, results, from, middle), new VerifyTask(sources, results, middle, to));
+        }
+    }
+
+    /**
+     * Loads the encoded data of a replay.
+     */
+    public interface Loader {
+        /**
+         * Loads the replay.
+         *
+         * @return the replay in the binary format of ReplayFiles
+         * @throws IOException if the replay cannot be read
+         */
+        ByteBuffer load() throws IOException;
+    }
+
+    /**
+     * A replay to verify: a name for the report and a way to load it.
+     */
+    public static final class Source {
+        private final String name;
+        private final Loader loader;
+
+        /**
+         * Constructs a new Source object.
+         *
+         * @param name   the name of the replay in the report
+         * @param loader loads the replay
+         */
+        public Source(String name, Loader loader) {
+            this.name = name;
+            this.loader = loader;
+        }
+
+        /**
+         * Returns the name of the replay.
+         *
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Loads the replay.
+         *
+         * @return the replay in the binary format of ReplayFiles
+         * @throws IOException if the replay cannot be read
+         */
+        public ByteBuffer load() throws IOException {
+            return loader.load();
+        }
+    }
+
+    /**
+     * The outcome of verifying one replay.
+     */
+    public static final class Result {
+        private final String name;
+        private final List<String> anomalies;
+        private int moveCount;
+        private int illegalMoves;
+        private boolean solved;
+        private String error;
+
+        /**
+         * Constructs a new Result object for a replay.
+         *
+         * @param name the name of the replay
+         */
+        private Result(String name) {
+            this.name = name;
+            this.anomalies = new ArrayList<>();
+        }
+
+        /**
+         * Returns the number of moves that were not valid when played and thus skipped.
+         *
+         * @return the illegal move count
+         */
+        public int getIllegalMoves() {
+            return illegalMoves;
+        }
+
+        /**
+         * Returns whether the board is solved after the last move.
+         *
+         * @return true if the final board is solved, false otherwise
+         */
+        public boolean isSolved() {
+            return solved;
+        }
+
+        /**
+         * Returns the anomalies found in the replay.
+         *
+         * @return the anomaly descriptions, empty if there are none
+         */
+        public List<String> getAnomalies() {
+            return anomalies;
+        }
+
+        /**
+         * Returns why the replay could not be read.
+         *
+         * @return the error message, or null if the replay was read
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Returns the report line of the replay.
+         *
+         * @return the name followed by the findings
+         */
+        @Override
+        public String toString() {
+            if (error != null) {
+                return name + ": error: " + error;
+            }
+            String line = name + ": moves " + moveCount + ", illegal " + illegalMoves + ", " + (solved ? "solved" : "not solved");
+            return anomalies.isEmpty() ? line : line + ", anomalies: " + String.join("; ", anomalies);
+        }
+    }
+}
@@ -0,0 +1,589 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds many live games in one process, keyed by game id.
+ * Each game keeps only compact state: its cells as bytes, a bitset of generated cells, and its move
+ * history as packed longs (cell, value and time of each move), with undone moves kept past the end of
+ * the history for redo, exactly like MoveHistory. Moves follow the rules of SudokuEngine and return the
+ * same result codes.
+ * Moves lock one of a fixed set of stripes chosen by the game id, so games on different stripes never
+ * contend and idle games cost no lock object. Games idle for longer than the idle timeout are evicted
+ * during creations (at most once per timeout) or by {@link #evictIdle()}, and when the estimated memory
+ * of all games passes the cap, the games idle the longest are evicted until it is back under
+ * {@value #LOW_WATER_PERCENT}% of the cap.
+ */
+public class SessionStore {
+    /**
+     * The default number of lock stripes.
+     */
+    public static final int DEFAULT_STRIPES = 1024;
+
+    /**
+     * The share of the memory cap that eviction frees down to, in percent.
+     */
+    private static final int LOW_WATER_PERCENT = 90;
+
+    /**
+     * The estimated bytes of a map entry, its boxed key and a game object with its array headers.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 48 + 80 + 3 * 16;
+
+    /**
+     * The number of moves a new game has room for before its history grows.
+     */
+    private static final int INITIAL_MOVE_CAPACITY = 8;
+
+    // Packed move: time in milliseconds << 24 | value << 16 | cell
+    private static final int CELL_BITS = 16;
+    private static final int VALUE_BITS = 8;
+
+    private final Map<Long, Game> games;
+    private final Object[] stripes;
+    private final long maxBytes;
+    private final long idleMillis;
+    private final AtomicLong nextId;
+    private final AtomicLong usedBytes;
+    private final AtomicLong evictions;
+    private final AtomicLong nextSweepMillis;
+    private final AtomicBoolean evicting;
+
+    /**
+     * Constructs a new SessionStore object.
+     *
+     * @param maxBytes   the estimated memory all games may use before the least recently used are evicted
+     * @param idleMillis the time after its last access when a game is evicted
+     * @param stripes    the number of locks shared by the games, rounded up to a power of two
+     */
+    public SessionStore(long maxBytes, long idleMillis, int stripes) {
+        this.games = new ConcurrentHashMap<>();
+        this.stripes = new Object[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Object();
+        }
+        this.maxBytes = maxBytes;
+        this.idleMillis = idleMillis;
+        this.nextId = new AtomicLong(1);
+        this.usedBytes = new AtomicLong();
+        this.evictions = new AtomicLong();
+        this.nextSweepMillis = new AtomicLong(System.currentTimeMillis() + idleMillis);
+        this.evicting = new AtomicBoolean();
+    }
+
+    /**
+     * Starts a game on a puzzle; its non-empty cells become the generated cells.
+     *
+     * @param puzzle the puzzle, with 0 for empty cells
+     * @return the id of the new game
+     * @throws IllegalArgumentException if the puzzle size is not supported
+     */
+    public long create(int[][] puzzle) {
+        long now = System.currentTimeMillis();
+        long next = nextSweepMillis.get();
+        if (now >= next && nextSweepMillis.compareAndSet(next, now + idleMillis)) {
+            evictIdle();
+        }
+        Game game = new Game(puzzle, now);
+        long id = nextId.getAndIncrement();
+        games.put(id, game);
+        if (usedBytes.addAndGet(game.footprint()) > maxBytes) {
+            evictToFit(id);
+        }
+        return id;
+    }
+
+    /**
+     * Places a value in a cell of a game if the move is valid, and records it.
+     *
+     * @param id    the game id
+     * @param row   the row of the cell
+     * @param col   the column of the cell
+     * @param value the value to place, from 1 to the size
+     * @return the outcome: OK if the value was placed; UNKNOWN_GAME, OUT_OF_RANGE, GENERATED_CELL or
+     * CONFLICT otherwise
+     */
+    public Outcome applyMove(long id, int row, int col, int value) {
+        Outcome outcome;
+        synchronized (stripeFor(id)) {
+            Game game = touch(id);
+            outcome = new Outcome(game == null ? SudokuEngine.Result.UNKNOWN_GAME : place(game, row, col, value), game);
+        }
+        if (outcome.result == SudokuEngine.Result.OK && usedBytes.get() > maxBytes) {
+            evictToFit(id); // Outside the stripe, so other games on it are not held up
+        }
+        return outcome;
+    }
+
+    /**
+     * Undoes the last move of a game by clearing its cell.
+     *
+     * @param id the game id
+     * @return the outcome: OK if a move was undone; UNKNOWN_GAME or NOTHING_TO_UNDO otherwise
+     */
+    public Outcome undo(long id) {
+        synchronized (stripeFor(id)) {
+            Game game = touch(id);
+            if (game == null) {
+                return new Outcome(SudokuEngine.Result.UNKNOWN_GAME, null);
+            }
+            if (game.moveCount == 0) {
+                return new Outcome(SudokuEngine.Result.NOTHING_TO_UNDO, game);
+            }
+            game.setCell(cellOf(game.moves[--game.moveCount]), 0);
+            return new Outcome(SudokuEngine.Result.OK, game);
+        }
+    }
+
+    /**
+     * Redoes the last undone move of a game.
+     *
+     * @param id the game id
+     * @return the outcome: OK if a move was redone; UNKNOWN_GAME or NOTHING_TO_REDO otherwise
+     */
+    public Outcome redo(long id) {
+        synchronized (stripeFor(id)) {
+            Game game = touch(id);
+            if (game == null) {
+                return new Outcome(SudokuEngine.Result.UNKNOWN_GAME, null);
+            }
+            if (game.moveCount == game.historyLength) {
+                return new Outcome(SudokuEngine.Result.NOTHING_TO_REDO, game);
+            }
+            long move = game.moves[game.moveCount++];
+            game.setCell(cellOf(move), valueOf(move));
+            return new Outcome(SudokuEngine.Result.OK, game);
+        }
+    }
+
+    /**
+     * Returns the cells of a game.
+     *
+     * @param id the game id
+     * @return a copy of the cells in row-major order, or null if the game does not exist
+     */
+    public int[] getCells(long id) {
+        synchronized (stripeFor(id)) {
+            Game game = touch(id);
+            if (game == null) {
+                return null;
+            }
+            int[] cells = new int[game.cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = game.cells[i];
+            }
+            return cells;
+        }
+    }
+
+    /**
+     * Returns the number of empty cells of a game.
+     *
+     * @param id the game id
+     * @return the number of cells still to fill, or -1 if the game does not exist
+     */
+    public int getRemainingMoves(long id) {
+        synchronized (stripeFor(id)) {
+            Game game = touch(id);
+            return game == null ? -1 : game.emptyCount;
+        }
+    }
+
+    /**
+     * Checks if a game is won, i.e. every cell is filled and no value repeats.
+     *
+     * @param id the game id
+     * @return true if the game exists and is solved, false otherwise
+     */
+    public boolean isSolved(long id) {
+        synchronized (stripeFor(id)) {
+            Game game = touch(id);
+            return game != null && game.isSolved();
+        }
+    }
+
+    /**
+     * Returns the replay of a game so far: the start board and the moves made.
+     *
+     * @param id          the game id
+     * @param elapsedTime the elapsed time to record
+     * @return the replay, or null if the game does not exist
+     */
+    public Replay toReplay(long id, String elapsedTime) {
+        synchronized (stripeFor(id)) {
+            Game game = touch(id);
+            if (game == null) {
+                return null;
+            }
+            int size = game.size;
+            int[][] board = new int[size][size];
+            for (int cell = 0; cell < size * size; cell++) {
+                board[cell / size][cell % size] = game.isGenerated(cell) ? game.cells[cell] : 0;
+            }
+            List<Move> moves = new ArrayList<>(game.moveCount);
+            for (int i = 0; i < game.moveCount; i++) {
+                long move = game.moves[i];
+                int cell = cellOf(move);
+                moves.add(new Move(cell / size, cell % size, valueOf(move), move >>> (CELL_BITS + VALUE_BITS)));
+            }
+            return new Replay(board, moves, elapsedTime);
+        }
+    }
+
+    /**
+     * Ends a game and frees its state.
+     *
+     * @param id the game id
+     * @return true if the game existed
+     */
+    public boolean remove(long id) {
+        synchronized (stripeFor(id)) {
+            Game game = games.remove(id);
+            if (game == null) {
+                return false;
+            }
+            usedBytes.addAndGet(-game.footprint());
+            return true;
+        }
+    }
+
+    /**
+     * Evicts every game not accessed within the idle timeout.
+     *
+     * @return the number of games evicted
+     */
+    public int evictIdle() {
+        return evictOlderThan(System.currentTimeMillis() - idleMillis, -1, -1);
+    }
+
+    /**
+     * Returns the number of live games.
+     *
+     * @return the game count
+     */
+    public int size() {
+        return games.size();
+    }
+
+    /**
+     * Returns the estimated memory used by all games.
+     *
+     * @return the estimate in bytes
+     */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Returns the number of games evicted so far, for idleness or to respect the memory cap.
+     *
+     * @return the eviction count
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Evicts the games idle the longest until the estimated memory is back under the low-water mark.
+     * One pass counts the games per age bucket to find the cutoff bucket; the next evicts all older games
+     * and as many games of that bucket as needed. Only one thread evicts at a time; others that find the store over the cap leave it to that thread.
+     *
+     * @param keepId the id of a game never to evict, such as the one just created
+     */
+    private void evictToFit(long keepId) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            evictOldestToFit(keepId);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Evicts the games idle the longest until the estimated memory is back under the low-water mark.
+     *
+     * @param keepId the id of a game never to evict
+     */
+    private void evictOldestToFit(long keepId) {
+        long target = maxBytes / 100 * LOW_WATER_PERCENT;
+        long excess = usedBytes.get() - target;
+        if (excess <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // Bucket b holds the games idle for [2^(b-1), 2^b) ms, so 64 buckets cover any age
+        long[] bytesByAge = new long[Long.SIZE + 1];
+        for (Game game : games.values()) {
+            bytesByAge[Long.SIZE - Long.numberOfLeadingZeros(Math.max(0, now - game.lastAccess))] += game.footprint();
+        }
+        int bucket = Long.SIZE;
+        for (long freed = bytesByAge[bucket]; freed < excess && bucket > 0; freed += bytesByAge[bucket]) {
+            bucket--;
+        }
+        // Evict every game older than the cutoff bucket, then games of that bucket until enough is freed
+        if (bucket < Long.SIZE - 1) {
+            evictOlderThan(now - (1L << bucket) + 1, keepId, -1);
+        }
+        long bucketStart = bucket == 0 ? now : now - (1L << (bucket - 1));
+        evictOlderThan(bucketStart + 1, keepId, target);
+    }
+
+    /**
+     * Evicts the games whose last access is before a given time.
+     *
+     * @param accessedBefore the time in milliseconds; games accessed at or after it are kept
+     * @param keepId         the id of a game never to evict, or -1
+     * @param stopAtBytes    the estimated memory at which to stop evicting, or -1 to evict all such games
+     * @return the number of games evicted
+     */
+    private int evictOlderThan(long accessedBefore, long keepId, long stopAtBytes) {
+        int evicted = 0;
+        for (Map.Entry<Long, Game> entry : games.entrySet()) {
+            if (usedBytes.get() <= stopAtBytes) {
+                break;
+            }
+            long id = entry.getKey();
+            if (id == keepId || entry.getValue().lastAccess >= accessedBefore) {
+                continue;
+            }
+            synchronized (stripeFor(id)) {
+                Game game = entry.getValue();
+                if (game.lastAccess < accessedBefore && games.remove(id, game)) { // Not touched meanwhile
+                    usedBytes.addAndGet(-game.footprint());
+                    evicted++;
+                }
+            }
+        }
+        evictions.addAndGet(evicted);
+        return evicted;
+    }
+
+    /**
+     * Places a value in a cell of a game if the move is valid, and records it. Must be called holding the
+     * stripe of the game.
+     *
+     * @param game  the game
+     * @param row   the row of the cell
+     * @param col   the column of the cell
+     * @param value the value to place, from 1 to the size
+     * @return OK if the value was placed; OUT_OF_RANGE, GENERATED_CELL or CONFLICT otherwise
+     */
+    private SudokuEngine.Result place(Game game, int row, int col, int value) {
+        int size = game.size;
+        if (row < 0 || row >= size || col < 0 || col >= size || value < 1 || value > size) {
+            return SudokuEngine.Result.OUT_OF_RANGE;
+        }
+        int cell = row * size + col;
+        if (game.isGenerated(cell)) {
+            return SudokuEngine.Result.GENERATED_CELL;
+        }
+        if (!SudokuBoard.isValidMove(game.cells, size, game.boxSize, row, col, value)) {
+            return SudokuEngine.Result.CONFLICT;
+        }
+        long before = game.footprint();
+        game.addMove(((game.lastAccess - game.startMillis) << (CELL_BITS + VALUE_BITS))
+                | ((long) value << CELL_BITS) | cell);
+        usedBytes.addAndGet(game.footprint() - before);
+        game.setCell(cell, value);
+        return SudokuEngine.Result.OK;
+    }
+
+    /**
+     * Looks up a game and marks it as accessed. Must be called holding the stripe of the game.
+     *
+     * @param id the game id
+     * @return the game, or null if it does not exist
+     */
+    private Game touch(long id) {
+        Game game = games.get(id);
+        if (game != null) {
+            game.lastAccess = System.currentTimeMillis();
+        }
+        return game;
+    }
+
+    /**
+     * Returns the lock of a game.
+     *
+     * @param id the game id
+     * @return the stripe lock
+     */
+    private Object stripeFor(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L; // Spread consecutive ids over the stripes
+        return stripes[(int) (hash >>> 40) & (stripes.length - 1)];
+    }
+
+    /**
+     * Returns the cell of a packed move.
+     *
+     * @param move the packed move
+     * @return the cell index
+     */
+    private static int cellOf(long move) {
+        return (int) (move & ((1 << CELL_BITS) - 1));
+    }
+
+    /**
+     * Returns the value of a packed move.
+     *
+     * @param move the packed move
+     * @return the value
+     */
+    private static int valueOf(long move) {
+        return (int) ((move >>> CELL_BITS) & ((1 << VALUE_BITS) - 1));
+    }
+
+    /**
+     * The result of an action on a game together with the state of the game right after it, all read
+     * under the game's lock so an eviction cannot slip in between.
+     */
+    public static final class Outcome {
+        private final SudokuEngine.Result result;
+        private final int remainingMoves;
+        private final boolean solved;
+
+        /**
+         * Constructs a new Outcome object. Must be called holding the stripe of the game.
+         *
+         * @param result the result of the action
+         * @param game   the game, or null if it does not exist
+         */
+        private Outcome(SudokuEngine.Result result, Game game) {
+            this.result = result;
+            this.remainingMoves = game == null ? -1 : game.emptyCount;
+            this.solved = game != null && game.isSolved();
+        }
+
+        /**
+         * Returns the result of the action.
+         *
+         * @return the result code
+         */
+        public SudokuEngine.Result getResult() {
+            return result;
+        }
+
+        /**
+         * Returns the number of empty cells of the game after the action.
+         *
+         * @return the number of cells still to fill, or -1 if the game does not exist
+         */
+        public int getRemainingMoves() {
+            return remainingMoves;
+        }
+
+        /**
+         * Returns whether the game was solved after the action.
+         *
+         * @return true if the game exists and is solved, false otherwise
+         */
+        public boolean isSolved() {
+            return solved;
+        }
+    }
+
+    /**
+     * The compact state of one game. Guarded by the stripe of its id.
+     */
+    private static final class Game {
+        private final byte size;
+        private final byte boxSize;
+        private final byte[] cells;
+        private final long[] generated;
+        private final long startMillis;
+        private long[] moves;
+        private int moveCount; // Moves in effect
+        private int historyLength; // Moves in effect followed by the undone moves that can be redone
+        private int emptyCount;
+        private volatile long lastAccess;
+
+        /**
+         * Constructs a new Game object for a puzzle.
+         *
+         * @param puzzle the puzzle, with 0 for empty cells
+         * @param now    the current time in milliseconds
+         */
+        private Game(int[][] puzzle, long now) {
+            int size = puzzle.length;
+            this.boxSize = (byte) SudokuBoard.boxSizeFor(size);
+            this.size = (byte) size;
+            this.cells = new byte[size * size];
+            this.generated = new long[(size * size + Long.SIZE - 1) / Long.SIZE];
+            for (int cell = 0; cell < size * size; cell++) {
+                int value = puzzle[cell / size][cell % size];
+                if (value < 0 || value > size) {
+                    throw new IllegalArgumentException("Value " + value + " is out of range");
+                }
+                cells[cell] = (byte) value;
+                if (value != 0) {
+                    generated[cell / Long.SIZE] |= 1L << cell;
+                } else {
+                    emptyCount++;
+                }
+            }
+            this.moves = new long[INITIAL_MOVE_CAPACITY];
+            this.startMillis = now;
+            this.lastAccess = now;
+        }
+
+        /**
+         * Checks if a cell was generated (pre-filled).
+         *
+         * @param cell the cell index
+         * @return true if the cell was generated
+         */
+        private boolean isGenerated(int cell) {
+            return (generated[cell / Long.SIZE] & (1L << cell)) != 0;
+        }
+
+        /**
+         * Checks if the game is won, i.e. every cell is filled. Moves never create conflicts, so a full board
+         * is solved unless the puzzle itself had conflicting clues.
+         *
+         * @return true if the board is solved
+         */
+        private boolean isSolved() {
+            return emptyCount == 0 && SudokuBoard.hasNoConflicts(cells, size);
+        }
+
+        /**
+         * Sets a cell and keeps the empty count up to date.
+         *
+         * @param cell  the cell index
+         * @param value the value, 0 to clear
+         */
+        private void setCell(int cell, int value) {
+            emptyCount += (cells[cell] != 0 ? 1 : 0) - (value != 0 ? 1 : 0);
+            cells[cell] = (byte) value;
+        }
+
+        /**
+         * Records a move and forgets the undone moves, growing the history if needed.
+         *
+         * @param move the packed move
+         */
+        private void addMove(long move) {
+            if (moveCount == moves.length) {
+                long[] grown = new long[moves.length * 2];
+                System.arraycopy(moves, 0, grown, 0, moveCount);
+                moves = grown;
+            }
+            moves[moveCount++] = move;
+            historyLength = moveCount;
+        }
+
+        /**
+         * Returns the estimated memory of the game, including its map entry.
+         *
+         * @return the estimate in bytes
+         */
+        private long footprint() {
+            return ENTRY_OVERHEAD_BYTES + cells.length + 8L * generated.length + 8L * moves.length;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+
+/**
+ * Bounded least-recently-used cache of solved puzzles, keyed by canonical form.
+ * A puzzle is canonicalized before the lookup, so every relabeling, transposition or band, stack, row or
+ * column swap of a cached puzzle is a hit, and the cached solution is mapped back through the transform.
+ * Puzzles without a solution are cached too. The cache is thread-safe.
+ * <p>
+ * The capacity is counted in 9x9 boards: a larger board takes as much room as its cells would fill with
+ * 9x9 boards, so big boards cannot pin much more memory than the capacity suggests. Entries are spread
+ * over lock stripes by key, each with its own share of the capacity and its own recency order, so the
+ * least recently used entry of a stripe rather than of the whole cache is evicted. Each thread reuses one
+ * canonicalizer per board size.
+ */
+public class SolutionCache {
+    private static final int[] NO_SOLUTION = new int[0];
+    private static final SolutionCache DEFAULT = new SolutionCache(10_000);
+
+    /**
+     * The cells of one unit of capacity, a 9x9 board.
+     */
+    private static final int CELLS_PER_UNIT = 81;
+
+    /**
+     * The most lock stripes a cache is split into.
+     */
+    private static final int MAX_STRIPES = 16;
+
+    /**
+     * The least capacity of one stripe, enough for the largest (64x64) board.
+     */
+    private static final int MIN_STRIPE_CAPACITY = 64;
+
+    private static final ThreadLocal<Canonicalizer[]> CANONICALIZERS =
+            ThreadLocal.withInitial(() -> new Canonicalizer[Long.SIZE + 1]);
+
+    private final Stripe[] stripes;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong uncacheable;
+
+    /**
+     * Constructs a new SolutionCache object holding up to a given number of 9x9 solutions, or
+     * proportionally fewer solutions of larger boards.
+     *
+     * @param capacity the maximum number of cached 9x9 solutions
+     */
+    public SolutionCache(int capacity) {
+        this.stripes = new Stripe[Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, capacity / MIN_STRIPE_CAPACITY)))];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe((long) capacity * CELLS_PER_UNIT / stripes.length);
+        }
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.uncacheable = new AtomicLong();
+    }
+
+    /**
+     * Returns the cache shared by the interactive game.
+     *
+     * @return the shared cache
+     */
+    public static SolutionCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Solves a puzzle, answering from the cache when an equivalent puzzle has been solved before.
+     * On a miss the canonical form of the puzzle is solved and cached. Puzzles too symmetric to
+     * canonicalize are solved directly and not cached.
+     *
+     * @param puzzle   the cell values in row-major order, with 0 for empty cells; it is left unchanged
+     * @param solution the array that receives the solved cells; may be the puzzle array itself
+     * @param solver   solves a puzzle (first argument) into a solution array (second argument)
+     *                 and returns whether there was a solution
+     * @return true if the puzzle was solved, false if it has no solution
+     */
+    public boolean solve(int[] puzzle, int[] solution, BiPredicate<int[], int[]> solver) {
+        return trySolve(puzzle, solution, solver::test) == Boolean.TRUE;
+    }
+
+    /**
+     * Solves a puzzle like {@link #solve(int[], int[], BiPredicate)} with a solver that may give up.
+     * A solver that gives up returns null, and that answer is not cached, so a later lookup solves again.
+     * The solver may be handed this thread's canonicalizer's cells, so it must not use a cache itself.
+     *
+     * @param puzzle   the cell values in row-major order, with 0 for empty cells; it is left unchanged
+     * @param solution the array that receives the solved cells; may be the puzzle array itself
+     * @param solver   solves a puzzle (first argument) into a solution array (second argument) and
+     *                 returns true if there was a solution, false if there was none, or null if it gave up
+     * @return true if the puzzle was solved, false if it has no solution, or null if the solver gave up
+     */
+    public Boolean trySolve(int[] puzzle, int[] solution, BiFunction<int[], int[], Boolean> solver) {
+        Canonicalizer canonicalizer = canonicalizerFor((int) Math.round(Math.sqrt(puzzle.length)));
+        if (!canonicalizer.canonicalize(puzzle)) {
+            uncacheable.incrementAndGet();
+            return solver.apply(puzzle, solution);
+        }
+        String key = canonicalizer.getKey();
+        Stripe stripe = stripes[(key.hashCode() * 0x9E3779B9 >>> 16) & (stripes.length - 1)];
+        int[] canonicalSolution = stripe.get(key);
+        if (canonicalSolution != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            int[] solved = new int[puzzle.length];
+            Boolean result = solver.apply(canonicalizer.getCanonicalCells(), solved);
+            if (result == null) {
+                return null;
+            }
+            canonicalSolution = result ? solved : NO_SOLUTION;
+            stripe.put(key, canonicalSolution);
+        }
+        if (canonicalSolution == NO_SOLUTION) {
+            return false;
+        }
+        canonicalizer.fromCanonical(canonicalSolution, solution);
+        return true;
+    }
+
+    /**
+     * Returns the canonicalizer of the calling thread for a board size, creating it on first use.
+     *
+     * @param size the size of the Sudoku grid
+     * @return the canonicalizer
+     * @throws IllegalArgumentException if the size is not a supported perfect square
+     */
+    private static Canonicalizer canonicalizerFor(int size) {
+        Canonicalizer[] canonicalizers = CANONICALIZERS.get();
+        if (size < 1 || size >= canonicalizers.length) {
+            throw new IllegalArgumentException("Invalid board size: " + size);
+        }
+        if (canonicalizers[size] == null) {
+            canonicalizers[size] = new Canonicalizer(size);
+        }
+        return canonicalizers[size];
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that had to solve the puzzle.
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of puzzles solved without the cache because they could not be canonicalized.
+     *
+     * @return the uncacheable count
+     */
+    public long getUncacheable() {
+        return uncacheable.get();
+    }
+
+    /**
+     * Returns the fraction of all solves answered from the cache.
+     *
+     * @return the hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get() + uncacheable.get();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /**
+     * One lock stripe: the entries whose keys hash to it, in access order, with the cells they hold.
+     */
+    private static final class Stripe {
+        private final Map<String, int[]> solutions;
+        private final long maxCells;
+        private long cells;
+
+        /**
+         * Constructs a new Stripe object.
+         *
+         * @param maxCells the most board cells the entries of this stripe may hold
+         */
+        private Stripe(long maxCells) {
+            this.solutions = new LinkedHashMap<>(16, 0.75f, true);
+            this.maxCells = maxCells;
+        }
+
+        /**
+         * Returns the solution cached for a key and marks it as recently used.
+         *
+         * @param key the canonical key
+         * @return the canonical solution, or null if the key is not cached
+         */
+        private synchronized int[] get(String key) {
+            return solutions.get(key);
+        }
+
+        /**
+         * Caches a solution and evicts the least recently used entries until the stripe fits its share.
+         * An entry bigger than the whole share is not cached.
+         *
+         * @param key      the canonical key, one character per cell
+         * @param solution the canonical solution
+         */
+        private synchronized void put(String key, int[] solution) {
+            if (key.length() > maxCells) {
+                return;
+            }
+            if (solutions.put(key, solution) == null) {
+                cells += key.length();
+            }
+            Iterator<String> eldest = solutions.keySet().iterator();
+            while (cells > maxCells) {
+                cells -= eldest.next().length();
+                eldest.remove();
+            }
+        }
+    }
+}
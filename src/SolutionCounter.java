@@ -0,0 +1,113 @@
+/**
+ * Counts the solutions of a Sudoku puzzle up to a given limit.
+ * The search keeps candidate bitmasks per row, column and subgrid in {@link CandidateMasks}, always
+ * branches on the empty cell with the fewest candidates, and allocates nothing once it has started.
+ */
+public final class SolutionCounter {
+    /**
+     * The value returned when the search exceeded its node budget before reaching a verdict.
+     */
+    public static final int UNKNOWN = -1;
+
+    private final CandidateMasks masks;
+    private final int[] empties;
+    private int emptyCount;
+    private int limit;
+    private int found;
+    private long nodes;
+    private long maxNodes;
+
+    /**
+     * Constructs a new SolutionCounter object for boards of a given size.
+     *
+     * @param size the size of the Sudoku grid (e.g., 9 for standard Sudoku)
+     */
+    private SolutionCounter(int size) {
+        this.masks = new CandidateMasks(size);
+        this.empties = new int[size * size];
+    }
+
+    /**
+     * Counts the solutions of a puzzle, stopping as soon as a given number of solutions has been found.
+     *
+     * @param grid  the Sudoku puzzle grid, where 0 marks an empty cell; it is left unchanged
+     * @param limit the number of solutions after which the search stops (2 is enough to test uniqueness)
+     * @return the number of solutions found, at most {@code limit}
+     */
+    public static int countSolutions(int[][] grid, int limit) {
+        return countSolutions(grid, limit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Counts the solutions of a puzzle, giving up after a given number of search nodes.
+     *
+     * @param grid     the Sudoku puzzle grid, where 0 marks an empty cell; it is left unchanged
+     * @param limit    the number of solutions after which the search stops (2 is enough to test uniqueness)
+     * @param maxNodes the maximum number of search nodes to visit
+     * @return the number of solutions found, at most {@code limit}, or {@link #UNKNOWN} if the budget ran out first
+     */
+    public static int countSolutions(int[][] grid, int limit, long maxNodes) {
+        SolutionCounter counter = new SolutionCounter(grid.length);
+        if (!counter.load(grid)) {
+            return 0; // Duplicate clue in a row, column or subgrid
+        }
+        counter.limit = limit;
+        counter.maxNodes = maxNodes;
+        counter.count(0);
+        return counter.nodes > counter.maxNodes ? UNKNOWN : counter.found;
+    }
+
+    /**
+     * Loads the clues of a grid into the masks and collects its empty cells.
+     *
+     * @param grid the Sudoku puzzle grid
+     * @return true if the clues are consistent, false otherwise
+     */
+    private boolean load(int[][] grid) {
+        for (int cell = 0; cell < empties.length; cell++) {
+            int value = grid[masks.getRow(cell)][masks.getCol(cell)];
+            if (value == 0) {
+                empties[emptyCount++] = cell;
+            } else if ((masks.getCandidates(cell) & (1L << (value - 1))) == 0) {
+                return false; // Duplicate clue in a row, column or subgrid
+            } else {
+                masks.place(cell, value);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Recursive helper method that counts the completions of the cells from a given depth onwards.
+     * The most constrained remaining cell is swapped into position {@code depth} before branching.
+     *
+     * @param depth the number of empty cells already filled on the current path
+     */
+    private void count(int depth) {
+        if (depth == emptyCount) {
+            found++;
+            return;
+        }
+        if (++nodes > maxNodes) {
+            return;
+        }
+
+        // Minimum remaining values: pick the empty cell with the fewest candidates
+        int bestIndex = masks.selectMostConstrained(empties, depth, emptyCount);
+        int cell = empties[bestIndex];
+        empties[bestIndex] = empties[depth];
+        empties[depth] = cell;
+        long candidates = masks.getCandidates(cell);
+        while (candidates != 0) {
+            long bit = Long.lowestOneBit(candidates);
+            candidates ^= bit;
+            int value = Long.numberOfTrailingZeros(bit) + 1;
+            masks.place(cell, value);
+            count(depth + 1);
+            masks.remove(cell, value); // Backtrack
+            if (found >= limit || nodes > maxNodes) {
+                return;
+            }
+        }
+    }
+}
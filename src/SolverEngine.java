@@ -0,0 +1,87 @@
+/**
+ * Enumerates the available Sudoku solving engines.
+ */
+public enum SolverEngine {
+    /**
+     * Depth-first backtracking over bitmask candidates (SudokuSolver).
+     */
+    BACKTRACKING,
+
+    /**
+     * Knuth's Algorithm X over an exact-cover matrix using dancing links (DancingLinksSolver).
+     */
+    DANCING_LINKS,
+
+    /**
+     * Backtracking split into fork/join tasks at shallow branch points (ParallelSudokuSolver).
+     */
+    PARALLEL;
+
+    /**
+     * Creates a solver of this engine type for a given Sudoku puzzle board.
+     *
+     * @param board the Sudoku puzzle board
+     * @return a solver for the board
+     */
+    public PuzzleSolver createSolver(int[][] board) {
+        return switch (this) {
+            case BACKTRACKING -> new SudokuSolver(board);
+            case DANCING_LINKS -> new DancingLinksSolver(board);
+            case PARALLEL -> new ParallelSudokuSolver(board);
+        };
+    }
+
+    /**
+     * Solves a puzzle given as cells in row-major order with a solver of this engine type.
+     *
+     * @param puzzle   the cell values, with 0 for empty cells; it is left unchanged
+     * @param solution the array that receives the solved cells; may be the puzzle array itself
+     * @return true if the puzzle was solved, false if it has no solution
+     */
+    public boolean solve(int[] puzzle, int[] solution) {
+        return trySolve(puzzle, solution, Long.MAX_VALUE) == Boolean.TRUE;
+    }
+
+    /**
+     * Solves a puzzle given as cells in row-major order, giving up after a number of search nodes.
+     *
+     * @param puzzle    the cell values, with 0 for empty cells; it is left unchanged
+     * @param solution  the array that receives the solved cells; may be the puzzle array itself
+     * @param nodeLimit the maximum number of search nodes
+     * @return true if the puzzle was solved, false if it has no solution, or null if the solver
+     * reached the node limit first
+     */
+    public Boolean trySolve(int[] puzzle, int[] solution, long nodeLimit) {
+        int size = (int) Math.round(Math.sqrt(puzzle.length));
+        int[][] board = new int[size][size];
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(puzzle, row * size, board[row], 0, size);
+        }
+        PuzzleSolver solver = createSolver(board);
+        solver.setNodeLimit(nodeLimit);
+        int[][] solved = solver.solve();
+        if (solved == null) {
+            return solver.isLimitReached() ? null : Boolean.FALSE;
+        }
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(solved[row], 0, solution, row * size, size);
+        }
+        return Boolean.TRUE;
+    }
+
+    /**
+     * Parses an engine name such as "backtracking" or "dlx".
+     *
+     * @param name the engine name, case-insensitive
+     * @return the matching engine
+     * @throws IllegalArgumentException if the name does not match any engine
+     */
+    public static SolverEngine fromName(String name) {
+        return switch (name.toLowerCase()) {
+            case "backtracking", "bt" -> BACKTRACKING;
+            case "dancing_links", "dancing-links", "dlx" -> DANCING_LINKS;
+            case "parallel", "forkjoin" -> PARALLEL;
+            default -> throw new IllegalArgumentException("Unknown solver engine: " + name);
+        };
+    }
+}
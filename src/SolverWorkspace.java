@@ -0,0 +1,279 @@
+/**
+ * Reusable state for solving many puzzles of one size on one thread.
+ * All arrays, including the explicit search stack of (cell, remaining candidates) frames, are allocated
+ * once when the workspace is created, so {@link #solve(int[], int[])} allocates nothing and its depth
+ * is not limited by the thread's call stack. The search keeps candidate bitmasks per row, column and
+ * subgrid in one reused {@link CandidateMasks} and always branches on the empty cell with the fewest candidates.
+ * Before searching, naked and hidden singles are placed like {@link ConstraintPropagator} does, which also
+ * rejects most unsolvable boards at once; a node limit bounds the search on the rest.
+ * A workspace is not thread-safe; give each thread its own.
+ */
+public final class SolverWorkspace {
+    private final int size;
+    private final CandidateMasks masks;
+    private final int[][] units;
+    private final int[] values;
+    private final int[] empties; // Empty cells; the first depth entries are the cells of the stack frames
+    private final long[] untried; // Per stack frame, the candidates of its cell not tried yet
+    private int emptyCount;
+    private long nodeCount;
+    private long nodeLimit = Long.MAX_VALUE;
+    private boolean limitReached;
+
+    /**
+     * Constructs a new SolverWorkspace object for boards of a given size.
+     *
+     * @param size the size of the Sudoku grid (e.g., 9 for standard Sudoku)
+     * @throws IllegalArgumentException if the size is not a supported perfect square
+     */
+    public SolverWorkspace(int size) {
+        this.size = size;
+        this.masks = new CandidateMasks(size);
+        this.units = CandidateMasks.unitsFor(size, masks.getBoxSize());
+        this.values = new int[size * size];
+        this.empties = new int[size * size];
+        this.untried = new long[size * size];
+    }
+
+    /**
+     * Returns the size of the boards this workspace solves.
+     *
+     * @return the size of the Sudoku grid
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of search nodes visited by the last call to {@link #solve(int[], int[])}.
+     *
+     * @return the number of search nodes
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Sets the number of search nodes after which {@link #solve(int[], int[])} gives up and returns false.
+     *
+     * @param nodeLimit the maximum number of search nodes
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Returns whether the last call to {@link #solve(int[], int[])} gave up because it ran out of nodes,
+     * in which case its false result says nothing about whether the puzzle has a solution.
+     *
+     * @return true if the node limit was reached, false otherwise
+     */
+    public boolean isLimitReached() {
+        return limitReached;
+    }
+
+    /**
+     * Solves a puzzle given as cells in row-major order.
+     *
+     * @param puzzle   the cell values, with 0 for empty cells; it is left unchanged
+     * @param solution the array that receives the solved cells; may be the puzzle array itself,
+     *                 and is left unchanged if there is no solution
+     * @return true if the puzzle was solved, false if it has no solution or the node limit was reached
+     */
+    public boolean solve(int[] puzzle, int[] solution) {
+        if (!load(puzzle)) {
+            return false; // Duplicate clue in a row, column or subgrid
+        }
+        if (!propagate()) {
+            return false;
+        }
+        if (!search()) {
+            return false;
+        }
+        System.arraycopy(values, 0, solution, 0, values.length);
+        return true;
+    }
+
+    /**
+     * Resets the workspace and loads the clues of a puzzle into the masks.
+     *
+     * @param puzzle the cell values, with 0 for empty cells
+     * @return true if the clues are consistent, false otherwise
+     */
+    private boolean load(int[] puzzle) {
+        emptyCount = 0;
+        nodeCount = 0;
+        limitReached = false;
+        for (int cell = 0; cell < values.length; cell++) {
+            values[cell] = puzzle[cell];
+            if (puzzle[cell] == 0) {
+                empties[emptyCount++] = cell;
+            }
+        }
+        return masks.load(puzzle);
+    }
+
+    /**
+     * Places naked and hidden singles until a fixpoint is reached, then drops the filled cells from the
+     * list of empty cells.
+     *
+     * @return false if an empty cell or a unit ran out of candidates, true otherwise
+     */
+    private boolean propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < emptyCount; i++) {
+                int cell = empties[i];
+                if (values[cell] != 0) {
+                    continue;
+                }
+                long candidates = masks.getCandidates(cell);
+                if (candidates == 0) {
+                    return false; // Contradiction
+                }
+                if ((candidates & (candidates - 1)) == 0) {
+                    place(cell, candidates);
+                    changed = true;
+                }
+            }
+            for (int[] unit : units) {
+                int placed = placeHiddenSingles(unit);
+                if (placed < 0) {
+                    return false;
+                }
+                changed |= placed > 0;
+            }
+        }
+        int remaining = 0;
+        for (int i = 0; i < emptyCount; i++) {
+            if (values[empties[i]] == 0) {
+                empties[remaining++] = empties[i];
+            }
+        }
+        emptyCount = remaining;
+        return true;
+    }
+
+    /**
+     * Places every value that has exactly one possible cell in a unit.
+     *
+     * @param unit the cells of the unit
+     * @return the number of values placed, or -1 if a missing value has no possible cell
+     */
+    private int placeHiddenSingles(int[] unit) {
+        long seenOnce = 0;
+        long seenTwice = 0;
+        long present = 0;
+        for (int cell : unit) {
+            if (values[cell] != 0) {
+                present |= 1L << (values[cell] - 1);
+                continue;
+            }
+            long candidates = masks.getCandidates(cell);
+            seenTwice |= seenOnce & candidates;
+            seenOnce |= candidates;
+        }
+        if ((seenOnce | present) != masks.getAllDigits()) {
+            return -1; // Some value can no longer be placed in this unit
+        }
+        long singles = seenOnce & ~seenTwice & ~present;
+        int placed = 0;
+        for (int cell : unit) {
+            if (singles == 0) {
+                break;
+            }
+            if (values[cell] != 0) {
+                continue;
+            }
+            long hit = masks.getCandidates(cell) & singles;
+            if (hit == 0) {
+                continue;
+            }
+            if ((hit & (hit - 1)) != 0) {
+                return -1; // Two values can only go in the same cell
+            }
+            singles &= ~hit;
+            place(cell, hit);
+            placed++;
+        }
+        return placed;
+    }
+
+    /**
+     * Places the value encoded by a single-bit mask in a cell.
+     *
+     * @param cell the cell
+     * @param bit  the candidate bit of the value
+     */
+    private void place(int cell, long bit) {
+        values[cell] = Long.numberOfTrailingZeros(bit) + 1;
+        masks.place(cell, values[cell]);
+    }
+
+    /**
+     * Depth-first search over the empty cells using the explicit stack.
+     * Each frame at position {@code depth} owns the cell {@code empties[depth]}; the most constrained
+     * remaining cell is swapped into that position when the frame is pushed.
+     *
+     * @return true if every empty cell was filled, false if the search space is exhausted or the node
+     * limit was reached
+     */
+    private boolean search() {
+        int depth = 0;
+        boolean descend = true;
+        while (true) {
+            if (descend) {
+                if (depth == emptyCount) {
+                    return true;
+                }
+                if (++nodeCount > nodeLimit) {
+                    limitReached = true;
+                    return false;
+                }
+                push(depth);
+            }
+
+            // Try the next untried candidate of the frame at this depth
+            long candidates = untried[depth];
+            if (candidates == 0) {
+                if (depth == 0) {
+                    return false;
+                }
+                depth--;
+                unplace(empties[depth]);
+                descend = false;
+                continue;
+            }
+            long bit = Long.lowestOneBit(candidates);
+            untried[depth] = candidates ^ bit;
+            place(empties[depth], bit);
+            depth++;
+            descend = true;
+        }
+    }
+
+    /**
+     * Pushes a frame for the remaining empty cell with the fewest candidates.
+     * A cell without candidates gives a frame with nothing to try, so the search backtracks at once.
+     *
+     * @param depth the position of the new frame
+     */
+    private void push(int depth) {
+        int bestIndex = masks.selectMostConstrained(empties, depth, emptyCount);
+        int cell = empties[bestIndex];
+        empties[bestIndex] = empties[depth];
+        empties[depth] = cell;
+        untried[depth] = masks.getCandidates(cell);
+    }
+
+    /**
+     * Removes the value placed in a cell by the search.
+     *
+     * @param cell the cell to clear
+     */
+    private void unplace(int cell) {
+        masks.remove(cell, values[cell]);
+        values[cell] = 0;
+    }
+}
@@ -0,0 +1,472 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Micro-benchmark suite for the solver, the generator, board validation, rendering and replay I/O.
+ * Each benchmark runs timed warmup iterations followed by timed measurement iterations and reports
+ * the mean time per operation, the bytes allocated per operation and the garbage collections seen
+ * while measuring. Inputs are generated from fixed seeds so runs are comparable with a saved baseline.
+ */
+public class SudokuBenchmark {
+    private static final long SEED = 42;
+    private static final int PUZZLES_PER_SET = 16;
+
+    /**
+     * Well-known puzzles that need a lot of search, including one built to defeat row-major backtracking.
+     */
+    private static final String[] PATHOLOGICAL = {
+            "..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9",
+            "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..",
+            ".......39.....1..5..3.5.8....8.9...6.7...2...1..4.......9.8..5..2....6..4..7.....",
+            "1.......2.9.4...5...6...7...5.9.3.......7.......85..4.7.....6...3...9.8...2.....1",
+    };
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final com.sun.management.ThreadMXBean threads;
+    private long sink;
+
+    /**
+     * Constructs a new SudokuBenchmark object.
+     *
+     * @param warmupIterations      the number of iterations run before measuring
+     * @param measurementIterations the number of measured iterations
+     * @param iterationMillis       the minimum duration of one iteration
+     */
+    public SudokuBenchmark(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    /**
+     * Runs the benchmarks from the command line.
+     *
+     * @param args see {@link #run(String[])}
+     */
+    public static void main(String[] args) {
+        run(args);
+    }
+
+    /**
+     * Runs the benchmarks from command-line arguments:
+     * {@code [--warmup N] [--iterations N] [--time MS] [filter...]}.
+     * Only benchmarks whose name contains one of the filters are run; without filters all of them are.
+     *
+     * @param args the arguments following {@code --benchmark}
+     */
+    public static void run(String[] args) {
+        int warmup = 3;
+        int iterations = 5;
+        long millis = 500;
+        List<String> filters = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                    case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                    case "--time" -> millis = Long.parseLong(args[++i]);
+                    default -> filters.add(args[i]);
+                }
+            }
+            if (warmup < 0 || iterations < 1 || millis < 1) {
+                throw new IllegalArgumentException();
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Usage: java Main --benchmark [--warmup N] [--iterations N] [--time MS] [filter...]");
+            return;
+        }
+
+        SudokuBenchmark benchmark = new SudokuBenchmark(warmup, iterations, millis);
+        System.out.printf("# Java %s, %s %s, %d cpus, warmup %d x %d ms, measurement %d x %d ms%n",
+                System.getProperty("java.version"), System.getProperty("os.name"), System.getProperty("os.arch"),
+                Runtime.getRuntime().availableProcessors(), warmup, millis, iterations, millis);
+        System.out.printf("%-36s %14s %12s %14s %6s %8s%n", "Benchmark", "ns/op", "error", "B/op", "gc", "gc ms");
+        try {
+            benchmark.runAll(filters);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs every benchmark that matches the filters.
+     *
+     * @param filters the name filters, or an empty list to run everything
+     * @throws IOException if the replay benchmarks cannot use a temporary file
+     */
+    private void runAll(List<String> filters) throws IOException {
+        // Solver benchmarks: each operation solves a fresh copy of the next puzzle of the set
+        String[] levels = {"easy", "medium", "hard", "pathological"};
+        for (SolverEngine engine : new SolverEngine[]{SolverEngine.BACKTRACKING, SolverEngine.DANCING_LINKS}) {
+            for (int level = 0; level < levels.length; level++) {
+                String name = "solve." + engine.name().toLowerCase() + "." + levels[level];
+                if (matches(name, filters)) {
+                    int[][][] puzzles = level < 3 ? generatedPuzzles(9, level + 1) : parsedPuzzles(PATHOLOGICAL);
+                    int[][] grid = new int[9][9];
+                    int[] next = {0};
+                    measure(name, () -> {
+                        int[][] puzzle = puzzles[next[0]++ % puzzles.length];
+                        for (int row = 0; row < 9; row++) {
+                            System.arraycopy(puzzle[row], 0, grid[row], 0, 9);
+                        }
+                        return engine.createSolver(grid).solve();
+                    });
+                }
+            }
+        }
+
+        SolverWorkspace workspace = new SolverWorkspace(9);
+        for (int level = 0; level < levels.length; level++) {
+            String name = "solve.workspace." + levels[level];
+            if (matches(name, filters)) {
+                int[][] flat = flattened(level < 3 ? generatedPuzzles(9, level + 1) : parsedPuzzles(PATHOLOGICAL));
+                int[] solution = new int[81];
+                int[] next = {0};
+                measure(name, () -> workspace.solve(flat[next[0]++ % flat.length], solution));
+            }
+        }
+
+        // A 16x16 board whose first subgrid has no place left for a 1, so it has no solution
+        if (matches("solve.workspace.unsolvable16", filters)) {
+            SolverWorkspace workspace16 = new SolverWorkspace(16);
+            int[] puzzle = new int[16 * 16];
+            for (int[] clue : new int[][]{{0, 4}, {1, 8}, {2, 12}, {4, 0}, {8, 1}, {12, 2}}) {
+                puzzle[clue[0] * 16 + clue[1]] = 1;
+            }
+            puzzle[3 * 16 + 3] = 2;
+            int[] solution = new int[16 * 16];
+            measure("solve.workspace.unsolvable16", () -> workspace16.solve(puzzle, solution));
+        }
+
+        // Medium puzzles solved by the workspace without the solution cache, through it with every lookup
+        // missing (canonicalize, then solve), and through it with every lookup hitting (canonicalize, map back)
+        for (int size : new int[]{9, 16}) {
+            for (String mode : new String[]{"off", "miss", "hit"}) {
+                String name = "solve.cached." + mode + "." + size + "x" + size;
+                if (matches(name, filters)) {
+                    int[][] flat = flattened(generatedPuzzles(size, 2));
+                    SolverWorkspace cachedWorkspace = new SolverWorkspace(size);
+                    SolutionCache cache = new SolutionCache(mode.equals("hit") ? 10_000 : 0);
+                    int[] solution = new int[size * size];
+                    int[] next = {0};
+                    measure(name, () -> {
+                        int[] puzzle = flat[next[0]++ % flat.length];
+                        return mode.equals("off") ? cachedWorkspace.solve(puzzle, solution)
+                                : cache.solve(puzzle, solution, cachedWorkspace::solve);
+                    });
+                }
+            }
+        }
+
+        // Grader benchmarks: each operation grades the next puzzle of the set
+        DifficultyGrader grader = new DifficultyGrader(9);
+        for (int level = 0; level < levels.length; level++) {
+            String name = "grade." + levels[level];
+            if (matches(name, filters)) {
+                int[][][] puzzles = level < 3 ? generatedPuzzles(9, level + 1) : parsedPuzzles(PATHOLOGICAL);
+                int[] next = {0};
+                measure(name, () -> grader.grade(puzzles[next[0]++ % puzzles.length]));
+            }
+        }
+
+        // Generator benchmarks: each operation generates one puzzle
+        for (int size : new int[]{4, 9, 16, 25, 36}) {
+            for (int difficulty = 1; difficulty <= 3; difficulty++) {
+                String name = "generate." + size + "x" + size + ".difficulty" + difficulty;
+                if (matches(name, filters)) {
+                    GameConfig config = new GameConfig(size, difficulty, false);
+                    Random random = new Random(SEED);
+                    measure(name, () -> new SudokuGenerator(config, random).getSudokuGrid());
+                }
+            }
+        }
+
+        // Board benchmarks on a solved 9x9 board
+        int[][] solution = generatedSolution(9);
+        SudokuBoard board = new SudokuBoard(9);
+        board.setBoard(solution);
+        if (matches("board.isValidMove", filters)) {
+            int[] next = {0};
+            measure("board.isValidMove", () -> {
+                int cell = next[0]++ % 81;
+                return board.isValidMove(cell / 9, cell % 9, cell % 9 + 1);
+            });
+        }
+        if (matches("board.fullValidation", filters)) {
+            measure("board.fullValidation", board::isSolved);
+        }
+        if (matches("board.getBoard", filters)) {
+            measure("board.getBoard", board::getBoard);
+        }
+        if (matches("board.snapshot", filters)) {
+            measure("board.snapshot", board::snapshot);
+        }
+
+        // Renderer benchmarks on the same board, writing to a stream that discards everything
+        TerminalRenderer renderer = new TerminalRenderer(OutputStream.nullOutputStream());
+        boolean[][] generatedCells = new boolean[9][9];
+        if (matches("render.full", filters)) {
+            measure("render.full", () -> {
+                renderer.render(board, generatedCells);
+                return renderer;
+            });
+        }
+        if (matches("render.diff", filters)) {
+            SudokuBoard changing = board.snapshot();
+            int[] next = {0};
+            measure("render.diff", () -> {
+                int cell = next[0]++ % 81;
+                changing.set(cell, changing.get(cell) == 0 ? solution[cell / 9][cell % 9] : 0); // One move per frame
+                renderer.renderDiff("Replaying", changing, generatedCells);
+                return renderer;
+            });
+        }
+
+        // Replay benchmarks on a 9x9 puzzle with every empty cell filled as a move
+        Replay replay = solvedReplay(generatedPuzzles(9, 2)[0]);
+        File file = File.createTempFile("sudoku-benchmark", ".txt");
+        file.deleteOnExit();
+        ReplayFiles.saveText(replay, file);
+        if (matches("replay.saveText", filters)) {
+            measure("replay.saveText", () -> {
+                try {
+                    ReplayFiles.saveText(replay, file);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                return file;
+            });
+        }
+        if (matches("replay.loadText", filters)) {
+            measure("replay.loadText", () -> {
+                try {
+                    return ReplayFiles.loadText(file);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        file.delete();
+
+        File binaryFile = File.createTempFile("sudoku-benchmark", ReplayFiles.BINARY_EXTENSION);
+        binaryFile.deleteOnExit();
+        ReplayFiles.saveBinary(replay, binaryFile);
+        if (matches("replay.saveBinary", filters)) {
+            measure("replay.saveBinary", () -> {
+                try {
+                    ReplayFiles.saveBinary(replay, binaryFile);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                return binaryFile;
+            });
+        }
+        if (matches("replay.loadBinary", filters)) {
+            measure("replay.loadBinary", () -> {
+                try {
+                    return ReplayFiles.loadBinary(binaryFile);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        binaryFile.delete();
+    }
+
+    /**
+     * Measures one benchmark and prints its result line.
+     * Allocation is read from the benchmark thread's allocation counter and garbage collections
+     * from the collector MXBeans, both only during the measurement iterations.
+     *
+     * @param name      the name of the benchmark
+     * @param operation the operation to measure; its result is consumed so it cannot be optimized away
+     */
+    private void measure(String name, Supplier<Object> operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(operation);
+        }
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long totalOps = 0;
+        double[] nanosPerOp = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] result = iteration(operation);
+            nanosPerOp[i] = (double) result[1] / result[0];
+            totalOps += result[0];
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        double mean = 0;
+        for (double value : nanosPerOp) {
+            mean += value / nanosPerOp.length;
+        }
+        double variance = 0;
+        for (double value : nanosPerOp) {
+            variance += (value - mean) * (value - mean) / Math.max(1, nanosPerOp.length - 1);
+        }
+        System.out.printf("%-36s %14.1f %12.1f %14.1f %6d %8d%n", name, mean, Math.sqrt(variance),
+                (double) allocated / totalOps, gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+    }
+
+    /**
+     * Runs an operation repeatedly for at least one iteration time.
+     *
+     * @param operation the operation to run
+     * @return the number of operations run and the elapsed nanoseconds
+     */
+    private long[] iteration(Supplier<Object> operation) {
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            Object result = operation.get();
+            sink += result == null ? 0 : System.identityHashCode(result);
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        return new long[]{ops, elapsed};
+    }
+
+    /**
+     * Generates a set of puzzles from the fixed seed.
+     *
+     * @param size       the size of the Sudoku grid
+     * @param difficulty the difficulty level (1-3)
+     * @return the puzzles
+     */
+    private static int[][][] generatedPuzzles(int size, int difficulty) {
+        GameConfig config = new GameConfig(size, difficulty, false);
+        Random random = new Random(SEED + difficulty);
+        int[][][] puzzles = new int[PUZZLES_PER_SET][][];
+        for (int i = 0; i < puzzles.length; i++) {
+            puzzles[i] = new SudokuGenerator(config, random).getSudokuGrid();
+        }
+        return puzzles;
+    }
+
+    /**
+     * Copies puzzles into flat arrays of cells in row-major order.
+     *
+     * @param puzzles the puzzles as rows
+     * @return the puzzles as cells
+     */
+    private static int[][] flattened(int[][][] puzzles) {
+        int[][] flat = new int[puzzles.length][];
+        for (int i = 0; i < puzzles.length; i++) {
+            int size = puzzles[i].length;
+            flat[i] = new int[size * size];
+            for (int row = 0; row < size; row++) {
+                System.arraycopy(puzzles[i][row], 0, flat[i], row * size, size);
+            }
+        }
+        return flat;
+    }
+
+    /**
+     * Parses puzzles written as one line of 81 characters with '.' for empty cells.
+     *
+     * @param lines the puzzle lines
+     * @return the puzzles
+     */
+    private static int[][][] parsedPuzzles(String[] lines) {
+        int[][][] puzzles = new int[lines.length][9][9];
+        for (int i = 0; i < lines.length; i++) {
+            for (int cell = 0; cell < 81; cell++) {
+                char c = lines[i].charAt(cell);
+                puzzles[i][cell / 9][cell % 9] = c == '.' ? 0 : c - '0';
+            }
+        }
+        return puzzles;
+    }
+
+    /**
+     * Returns a solved grid derived from the fixed seed.
+     *
+     * @param size the size of the Sudoku grid
+     * @return the solved grid
+     */
+    private static int[][] generatedSolution(int size) {
+        int[][] grid = generatedPuzzles(size, 1)[0];
+        return new SudokuSolver(grid).solve();
+    }
+
+    /**
+     * Builds a replay that fills every empty cell of a puzzle with its solution value, one move every few seconds.
+     *
+     * @param puzzle the puzzle
+     * @return the replay
+     */
+    private static Replay solvedReplay(int[][] puzzle) {
+        int size = puzzle.length;
+        int[][] solution = new int[size][];
+        for (int row = 0; row < size; row++) {
+            solution[row] = puzzle[row].clone();
+        }
+        new SudokuSolver(solution).solve();
+        List<Move> moves = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (puzzle[row][col] == 0) {
+                    moves.add(new Move(row, col, solution[row][col], moves.size() * 4_700L + (row * 37 + col) % 900));
+                }
+            }
+        }
+        return new Replay(puzzle, moves, "00:05:00");
+    }
+
+    /**
+     * Checks if a benchmark name matches the filters.
+     *
+     * @param name    the name of the benchmark
+     * @param filters the name filters, or an empty list to match everything
+     * @return true if the benchmark should run, false otherwise
+     */
+    private static boolean matches(String name, List<String> filters) {
+        if (filters.isEmpty()) {
+            return true;
+        }
+        for (String filter : filters) {
+            if (name.contains(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the total number of garbage collections so far.
+     *
+     * @return the collection count
+     */
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Returns the total time spent in garbage collection so far.
+     *
+     * @return the collection time in milliseconds
+     */
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
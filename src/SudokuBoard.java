@@ -1,24 +1,67 @@
+import java.util.Arrays;
+
 /**
  * Represents a Sudoku board with a given size.
+ * Cells are stored in one flat byte array in row-major order, so a cell is addressed either by
+ * row and column or by its index {@code row * size + col}. Snapshots share the array and copy it
+ * only when one side is next written to.
+ * The board also keeps, for every row, column and subgrid, how often each value occurs in it,
+ * together with the number of filled cells and of duplicate values. Every write updates these
+ * counts, so checking a move, counting the remaining cells and detecting a solved board take O(1).
  */
 public class SudokuBoard {
-    private int[][] board;
+    private byte[] cells;
+    private byte[] unitCounts; // Occurrences of each value (0 for empty) per row, column and subgrid
+    private int filledCount; // Number of non-empty cells
+    private int conflictCount; // Number of values that repeat a value already in the same unit
+    private boolean shared; // Whether cells and unitCounts may also be referenced by a snapshot
     private final int size; // Size of the Sudoku grid (e.g., 9 for standard Sudoku)
+    private final int boxSize; // Size of a subgrid (e.g., 3 for standard Sudoku)
 
     /**
      * Constructs a new SudokuBoard object with a given size.
      *
      * @param size the size of the Sudoku grid (e.g., 9 for standard Sudoku)
+     * @throws IllegalArgumentException if the size is not a supported perfect square
      */
     public SudokuBoard(int size) {
         this.size = size;
-        this.board = new int[size][size];
-        // Initialize the board with zeros (empty cells)
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                board[i][j] = 0;
-            }
+        this.boxSize = boxSizeFor(size);
+        this.cells = new byte[size * size]; // All cells start empty
+        this.unitCounts = new byte[3 * size * (size + 1)];
+        resetCounts();
+    }
+
+    /**
+     * Constructs a snapshot of another board that shares its cells until either one is modified.
+     *
+     * @param other the board to take a snapshot of
+     */
+    private SudokuBoard(SudokuBoard other) {
+        this.size = other.size;
+        this.boxSize = other.boxSize;
+        this.cells = other.cells;
+        this.unitCounts = other.unitCounts;
+        this.filledCount = other.filledCount;
+        this.conflictCount = other.conflictCount;
+        this.shared = true;
+        other.shared = true;
+    }
+
+    /**
+     * Returns the subgrid size of a board, which must be a perfect square no larger than 64
+     * so that every value fits a bit of a long candidate mask.
+     *
+     * @param size the size of the Sudoku grid (e.g., 4, 9, 16, 25 or 36)
+     * @return the size of a subgrid (e.g., 3 for standard Sudoku)
+     * @throws IllegalArgumentException if the size is not a supported perfect square
+     */
+    public static int boxSizeFor(int size) {
+        int boxSize = (int) Math.round(Math.sqrt(size));
+        if (size < 1 || size > Long.SIZE || boxSize * boxSize != size) {
+            throw new IllegalArgumentException("Invalid board size: " + size);
         }
+        return boxSize;
     }
 
     /**
@@ -29,7 +72,7 @@ public class SudokuBoard {
      * @return the value of the cell
      */
     public int getCellValue(int row, int col) {
-        return board[row][col];
+        return cells[row * size + col];
     }
 
     /**
@@ -44,7 +87,84 @@ public class SudokuBoard {
         if (!isValidCell(row, col) || !isValidValue(value)) {
             throw new IllegalArgumentException("Invalid cell or value");
         }
-        board[row][col] = value;
+        set(row * size + col, value);
+    }
+
+    /**
+     * Returns the value of a cell by its index.
+     *
+     * @param index the index of the cell, {@code row * size + col}
+     * @return the value of the cell
+     */
+    public int get(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Sets the value of a cell by its index without validating it.
+     *
+     * @param index the index of the cell, {@code row * size + col}
+     * @param value the value to place in the cell, between 0 and size
+     */
+    public void set(int index, int value) {
+        int old = cells[index];
+        if (old == value) {
+            return;
+        }
+        if (shared) {
+            // Copy on the first write after a snapshot
+            cells = cells.clone();
+            unitCounts = unitCounts.clone();
+            shared = false;
+        }
+        int row = index / size;
+        int col = index % size;
+        int box = (row / boxSize) * boxSize + col / boxSize;
+        removeCount(row, old);
+        removeCount(size + col, old);
+        removeCount(2 * size + box, old);
+        addCount(row, value);
+        addCount(size + col, value);
+        addCount(2 * size + box, value);
+        filledCount += (value != 0 ? 1 : 0) - (old != 0 ? 1 : 0);
+        cells[index] = (byte) value;
+    }
+
+    /**
+     * Returns the number of cells on the board.
+     *
+     * @return the number of cells (size * size)
+     */
+    public int getCellCount() {
+        return cells.length;
+    }
+
+    /**
+     * Returns the number of empty cells on the board.
+     *
+     * @return the number of empty cells
+     */
+    public int getEmptyCellCount() {
+        return cells.length - filledCount;
+    }
+
+    /**
+     * Returns the number of conflicts on the board, counting each value once more for every
+     * row, column or subgrid in which it is repeated.
+     *
+     * @return the number of conflicts, 0 if no value is repeated
+     */
+    public int getConflictCount() {
+        return conflictCount;
+    }
+
+    /**
+     * Checks if the board is solved, i.e. every cell is filled and no value is repeated.
+     *
+     * @return true if the board is solved, false otherwise
+     */
+    public boolean isSolved() {
+        return filledCount == cells.length && conflictCount == 0;
     }
 
     /**
@@ -69,7 +189,7 @@ public class SudokuBoard {
     }
 
     /**
-     * Checks if a move is valid.
+     * Checks if a move is valid, i.e. the value is not already in the row, column or subgrid of the cell.
      *
      * @param row   the row of the cell
      * @param col   the column of the cell
@@ -82,60 +202,116 @@ public class SudokuBoard {
         }
 
         // Check row, column, and subgrid
-        return !isValueInRow(row, value) &&
-                !isValueInColumn(col, value) &&
-                !isValueInSubgrid(row - row % 3, col - col % 3, value);
+        int box = (row / boxSize) * boxSize + col / boxSize;
+        return count(row, value) == 0 &&
+                count(size + col, value) == 0 &&
+                count(2 * size + box, value) == 0;
     }
 
     /**
-     * Checks if a value exists in the row.
+     * Checks if a value can be placed in a cell of a board given only as its cells, i.e. the value is not
+     * already in another cell of the row, column or subgrid. This is the rule {@link #isValidMove(int, int, int)}
+     * applies, for compact boards that keep no unit counts.
      *
-     * @param row   the row of the cell
-     * @param value the value to check
-     * @return true if the value exists in the row, false otherwise
+     * @param cells   the cell values in row-major order, with 0 for empty cells
+     * @param size    the size of the Sudoku grid
+     * @param boxSize the size of a subgrid, as returned by {@link #boxSizeFor(int)}
+     * @param row     the row of the cell
+     * @param col     the column of the cell
+     * @param value   the value to place in the cell
+     * @return true if the move is valid, false otherwise
      */
-    private boolean isValueInRow(int row, int value) {
-        for (int col = 0; col < size; col++) {
-            if (board[row][col] == value) {
-                return true;
+    public static boolean isValidMove(byte[] cells, int size, int boxSize, int row, int col, int value) {
+        int boxRow = row - row % boxSize;
+        int boxCol = col - col % boxSize;
+        for (int i = 0; i < size; i++) {
+            if ((i != col && cells[row * size + i] == value) || (i != row && cells[i * size + col] == value)) {
+                return false;
+            }
+            int r = boxRow + i / boxSize;
+            int c = boxCol + i % boxSize;
+            if ((r != row || c != col) && cells[r * size + c] == value) {
+                return false;
             }
         }
-        return false;
+        return true;
     }
 
     /**
-     * Checks if a value exists in the column.
+     * Checks that no value repeats in a row, column or subgrid of a board given only as its cells.
      *
-     * @param col   the column of the cell
-     * @param value the value to check
-     * @return true if the value exists in the column, false otherwise
+     * @param cells the cell values in row-major order, with 0 for empty cells
+     * @param size  the size of the Sudoku grid
+     * @return true if the board has no conflicts, false otherwise
      */
-    private boolean isValueInColumn(int col, int value) {
-        for (int row = 0; row < size; row++) {
-            if (board[row][col] == value) {
-                return true;
+    public static boolean hasNoConflicts(byte[] cells, int size) {
+        int boxSize = boxSizeFor(size);
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != 0 && !isValidMove(cells, size, boxSize, cell / size, cell % size, cells[cell])) {
+                return false;
             }
         }
-        return false;
+        return true;
     }
 
     /**
-     * Checks if a value exists in the 3x3 subgrid.
+     * Returns how often a value occurs in a unit.
      *
-     * @param startRow the starting row of the subgrid
-     * @param startCol the starting column of the subgrid
-     * @param value    the value to check
-     * @return true if the value exists in the subgrid, false otherwise
+     * @param unit  the unit: a row, size plus a column, or twice the size plus a subgrid
+     * @param value the value, or 0 for empty cells
+     * @return the number of occurrences
      */
-    private boolean isValueInSubgrid(int startRow, int startCol, int value) {
-        for (int row = startRow; row < startRow + 3; row++) {
-            for (int col = startCol; col < startCol + 3; col++) {
-                if (board[row][col] == value) {
-                    return true;
-                }
+    private int count(int unit, int value) {
+        return unitCounts[unit * (size + 1) + value];
+    }
+
+    /**
+     * Counts one more occurrence of a value in a unit.
+     *
+     * @param unit  the unit
+     * @param value the value, or 0 for an empty cell
+     */
+    private void addCount(int unit, int value) {
+        int slot = unit * (size + 1) + value;
+        if (value != 0 && unitCounts[slot] > 0) {
+            conflictCount++;
+        }
+        unitCounts[slot]++;
+    }
+
+    /**
+     * Counts one less occurrence of a value in a unit.
+     *
+     * @param unit  the unit
+     * @param value the value, or 0 for an empty cell
+     */
+    private void removeCount(int unit, int value) {
+        int slot = unit * (size + 1) + value;
+        unitCounts[slot]--;
+        if (value != 0 && unitCounts[slot] > 0) {
+            conflictCount--;
+        }
+    }
+
+    /**
+     * Recomputes the unit counts and counters from the cells.
+     */
+    private void resetCounts() {
+        Arrays.fill(unitCounts, (byte) 0);
+        filledCount = 0;
+        conflictCount = 0;
+        for (int index = 0; index < cells.length; index++) {
+            int row = index / size;
+            int col = index % size;
+            int box = (row / boxSize) * boxSize + col / boxSize;
+            int value = cells[index];
+            addCount(row, value);
+            addCount(size + col, value);
+            addCount(2 * size + box, value);
+            if (value != 0) {
+                filledCount++;
             }
         }
-        return false;
     }
 
     /**
@@ -147,6 +323,15 @@ public class SudokuBoard {
         return size;
     }
 
+    /**
+     * Returns the size of a subgrid.
+     *
+     * @return the size of a subgrid (e.g., 3 for standard Sudoku)
+     */
+    public int getBoxSize() {
+        return boxSize;
+    }
+
     /**
      * Returns a copy of the board.
      *
@@ -155,7 +340,22 @@ public class SudokuBoard {
     public int[][] getBoard() {
         int[][] copy = new int[size][size];
         for (int i = 0; i < size; i++) {
-            System.arraycopy(board[i], 0, copy[i], 0, size);
+            for (int j = 0; j < size; j++) {
+                copy[i][j] = cells[i * size + j];
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the cells in row-major order.
+     *
+     * @return the cell values, with 0 for empty cells
+     */
+    public int[] getCells() {
+        int[] copy = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            copy[i] = cells[i];
         }
         return copy;
     }
@@ -164,66 +364,59 @@ public class SudokuBoard {
      * Sets the entire board.
      *
      * @param newBoard the new board to set
-     */    public void setBoard(int[][] newBoard) {
+     */
+    public void setBoard(int[][] newBoard) {
         if (newBoard.length == size && newBoard[0].length == size) {
-            this.board = newBoard;
+            if (shared) {
+                cells = new byte[cells.length];
+                unitCounts = new byte[unitCounts.length];
+                shared = false;
+            }
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    cells[i * size + j] = (byte) newBoard[i][j];
+                }
+            }
+            resetCounts();
         } else {
             System.out.println("Invalid board size. The size of the new board must match the current board size.");
         }
     }
 
     /**
-     * Prints the board to the console.
+     * Returns a snapshot of the board. Taking a snapshot does not copy the cells; the board and the
+     * snapshot share them until one of the two is modified.
      *
-     * @param generatedCells a 2D boolean array indicating which cells were generated (pre-filled)
-     */    public void printBoard(boolean[][] generatedCells) {
-        // Print column numbers
-        System.out.print("  ");
-        for (int i = 0; i < size; i++) {
-            System.out.print(i + " ");
-            if ((i + 1) % 3 == 0 && i < size - 1) {
-                System.out.print(" ");
-            }
-        }
-        System.out.println();
+     * @return a snapshot of the board
+     */
+    public SudokuBoard snapshot() {
+        return new SudokuBoard(this);
+    }
 
-        // Print horizontal line
-        System.out.print(" ");
-        for (int i = 0; i < size + (size / 3 - 1); i++) {
-            System.out.print("--");
+    /**
+     * Resets the board to the cells of a snapshot, without copying them.
+     *
+     * @param snapshot a snapshot of a board of the same size
+     * @throws IllegalArgumentException if the snapshot has a different size
+     */
+    public void restore(SudokuBoard snapshot) {
+        if (snapshot.size != size) {
+            throw new IllegalArgumentException("Snapshot size does not match board size");
         }
-        System.out.println();
-
-        // Print board contents
-        for (int i = 0; i < size; i++) {
-            // Print row number
-            System.out.print(i + "|");
-
-            for (int j = 0; j < size; j++) {
-                if (generatedCells[i][j]) { // Generated cell
-                    System.out.print("\u001B[34m" + board[i][j] + " " + "\u001B[0m"); // Blue color
-                } else { // User-input cell
-                    if (board[i][j] == 0) { // Check if the cell value is zero
-                        System.out.print("  "); // Print a blank space
-                    } else {
-                        System.out.print("\u001B[32m" + board[i][j] + " " + "\u001B[0m"); // Green color
-                    }
-                }
-
-                if ((j + 1) % 3 == 0 && j < size - 1) {
-                    System.out.print("| ");
-                }
-            }
-            System.out.println();
+        cells = snapshot.cells;
+        unitCounts = snapshot.unitCounts;
+        filledCount = snapshot.filledCount;
+        conflictCount = snapshot.conflictCount;
+        shared = true;
+        snapshot.shared = true;
+    }
 
-            // Print horizontal line after every 3 rows
-            if ((i + 1) % 3 == 0 && i < size - 1) {
-                System.out.print(" ");
-                for (int j = 0; j < size + (size / 3 - 1); j++) {
-                    System.out.print("--");
-                }
-                System.out.println();
-            }
-        }
+    /**
+     * Prints the board to the console.
+     *
+     * @param generatedCells a 2D boolean array indicating which cells were generated (pre-filled)
+     */
+    public void printBoard(boolean[][] generatedCells) {
+        new TerminalRenderer(System.out).render(this, generatedCells);
     }
 }
@@ -0,0 +1,238 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The rules of one Sudoku game, without any console input or output.
+ * The engine owns the board, remembers which cells were generated, records every move with its time
+ * for replays, and supports undo, redo and solving. Every action returns a result code instead of
+ * printing, so the console game, services and load tests can all drive the same engine.
+ * An engine is not thread-safe; give each game its own.
+ */
+public class SudokuEngine {
+    /**
+     * The outcome of an action on the engine.
+     */
+    public enum Result {
+        /**
+         * The move was placed, or the undo, redo or solve was carried out.
+         */
+        OK,
+        /**
+         * The row, column or value is out of range.
+         */
+        OUT_OF_RANGE,
+        /**
+         * The value is already in the row, column or subgrid of the cell.
+         */
+        CONFLICT,
+        /**
+         * The cell was generated (pre-filled) and cannot be changed.
+         */
+        GENERATED_CELL,
+        /**
+         * There is no move to undo.
+         */
+        NOTHING_TO_UNDO,
+        /**
+         * There is no undone move to redo.
+         */
+        NOTHING_TO_REDO,
+        /**
+         * The puzzle has no solution from the current board.
+         */
+        NO_SOLUTION,
+        /**
+         * The game does not exist or was evicted; returned by SessionStore.
+         */
+        UNKNOWN_GAME
+    }
+
+    private final SudokuBoard board;
+    private final SudokuBoard startBoard;
+    private final boolean[][] generatedCells;
+    private final MoveHistory moveHistory;
+    private final SolverEngine solverEngine;
+    private final long startMillis;
+
+    /**
+     * Constructs a new SudokuEngine object for a puzzle; its non-empty cells become the generated cells.
+     *
+     * @param puzzle       the puzzle, with 0 for empty cells
+     * @param solverEngine the engine used by {@link #solve()}
+     * @throws IllegalArgumentException if the puzzle size is not supported or a value is out of range
+     */
+    public SudokuEngine(int[][] puzzle, SolverEngine solverEngine) {
+        int size = puzzle.length;
+        this.board = new SudokuBoard(size);
+        this.generatedCells = new boolean[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                board.setCellValue(row, col, puzzle[row][col]);
+                generatedCells[row][col] = puzzle[row][col] != 0;
+            }
+        }
+        this.startBoard = board.snapshot();
+        this.moveHistory = new MoveHistory();
+        this.solverEngine = solverEngine;
+        this.startMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Places a value in a cell if the move is valid, and records it.
+     *
+     * @param row   the row of the cell
+     * @param col   the column of the cell
+     * @param value the value to place, from 1 to the size
+     * @return OK if the value was placed; OUT_OF_RANGE, GENERATED_CELL or CONFLICT otherwise
+     */
+    public Result applyMove(int row, int col, int value) {
+        int size = board.getSize();
+        if (row < 0 || row >= size || col < 0 || col >= size || value < 1 || value > size) {
+            return Result.OUT_OF_RANGE;
+        }
+        if (generatedCells[row][col]) {
+            return Result.GENERATED_CELL;
+        }
+        if (!board.isValidMove(row, col, value)) {
+            return Result.CONFLICT;
+        }
+        moveHistory.addMove(new Move(row, col, value, System.currentTimeMillis() - startMillis));
+        board.setCellValue(row, col, value);
+        return Result.OK;
+    }
+
+    /**
+     * Undoes the last move by clearing its cell.
+     *
+     * @return OK if a move was undone, NOTHING_TO_UNDO otherwise
+     */
+    public Result undo() {
+        Move lastMove = moveHistory.undo();
+        if (lastMove == null) {
+            return Result.NOTHING_TO_UNDO;
+        }
+        board.setCellValue(lastMove.getRow(), lastMove.getCol(), 0);
+        return Result.OK;
+    }
+
+    /**
+     * Redoes the last undone move.
+     *
+     * @return OK if a move was redone, NOTHING_TO_REDO otherwise
+     */
+    public Result redo() {
+        Move lastUndoneMove = moveHistory.redo();
+        if (lastUndoneMove == null) {
+            return Result.NOTHING_TO_REDO;
+        }
+        board.setCellValue(lastUndoneMove.getRow(), lastUndoneMove.getCol(), lastUndoneMove.getValue());
+        return Result.OK;
+    }
+
+    /**
+     * Fills the board with the solution, using the configured solver engine.
+     * Boards equivalent to one solved before are answered from the shared solution cache.
+     *
+     * @return OK if the board was solved, NO_SOLUTION if the current board cannot be completed
+     */
+    public Result solve() {
+        int[] cells = board.getCells();
+        if (!SolutionCache.getDefault().solve(cells, cells, solverEngine::solve)) {
+            return Result.NO_SOLUTION;
+        }
+        for (int i = 0; i < cells.length; i++) {
+            board.set(i, cells[i]);
+        }
+        return Result.OK;
+    }
+
+    /**
+     * Checks if the game is won, i.e. every cell is filled and no value is repeated.
+     *
+     * @return true if the board is solved, false otherwise
+     */
+    public boolean isSolved() {
+        return board.isSolved();
+    }
+
+    /**
+     * Returns a snapshot of the current board, which later moves do not change.
+     *
+     * @return a snapshot of the board
+     */
+    public SudokuBoard snapshot() {
+        return board.snapshot();
+    }
+
+    /**
+     * Returns the value of a cell.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the value of the cell, 0 if it is empty
+     */
+    public int getCellValue(int row, int col) {
+        return board.getCellValue(row, col);
+    }
+
+    /**
+     * Checks if a cell was generated (pre-filled).
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if the cell was generated, false otherwise
+     */
+    public boolean isGenerated(int row, int col) {
+        return generatedCells[row][col];
+    }
+
+    /**
+     * Returns which cells were generated (pre-filled).
+     *
+     * @return a copy of the generated cells array
+     */
+    public boolean[][] getGeneratedCells() {
+        boolean[][] copy = new boolean[generatedCells.length][];
+        for (int row = 0; row < generatedCells.length; row++) {
+            copy[row] = generatedCells[row].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the size of the board.
+     *
+     * @return the size of the Sudoku grid
+     */
+    public int getSize() {
+        return board.getSize();
+    }
+
+    /**
+     * Returns the number of empty cells.
+     *
+     * @return the number of cells still to fill
+     */
+    public int getRemainingMoves() {
+        return board.getEmptyCellCount();
+    }
+
+    /**
+     * Returns the moves made so far, without the undone ones.
+     *
+     * @return an unmodifiable view of the moves
+     */
+    public List<Move> getMoves() {
+        return Collections.unmodifiableList(moveHistory.moves);
+    }
+
+    /**
+     * Returns the replay of the game so far: the start board and the moves made.
+     *
+     * @param elapsedTime the elapsed time to record
+     * @return the replay
+     */
+    public Replay toReplay(String elapsedTime) {
+        return new Replay(startBoard.getBoard(), moveHistory.moves, elapsedTime);
+    }
+}
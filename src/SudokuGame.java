@@ -1,25 +1,29 @@
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 import java.util.Scanner;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * The SudokuGame class represents the main game logic for a Sudoku game.
- * It includes methods for starting a new game, handling user input, and managing game state.
+ * The SudokuGame class is the console client of a Sudoku game.
+ * It reads the player's input, hands moves, undo, redo and solve requests to a SudokuEngine, which holds
+ * the rules and the game state, and shows the results on the console.
  */
 public class SudokuGame {
 
     /**
-     * The SudokuBoard object representing the current game board.
+     * The format of a move entered by the player: row, column and value.
      */
-    private SudokuBoard board;
+    private static final Pattern MOVE_PATTERN = Pattern.compile("(\\d+) (\\d+) (\\d+)");
 
     /**
-     * The Scanner object used for reading user input.
+     * The engine holding the rules and state of the current game, or null before the first game.
+     */
+    private SudokuEngine engine;
+
+    /**
+     * The Scanner object used for reading user input, shared with GameUtils so no buffered input is lost.
      */
     private final Scanner scanner;
 
@@ -34,24 +38,19 @@ public class SudokuGame {
     private final Timer timer;
 
     /**
-     * A 2D boolean array indicating which cells on the board were generated (pre-filled) at the start of the game.
+     * The size of the board of new games.
      */
-    private boolean[][] generatedCells;
+    private final int size;
 
     /**
-     * A List of Move objects representing the moves made during the game.
+     * The renderer that draws the board on the console.
      */
-    private final List<Move> moves;
+    private final TerminalRenderer renderer;
 
     /**
-     * A 2D integer array representing the initial state of the board at the start of the game.
+     * The engine used to solve the puzzle when the player asks for the solution.
      */
-    private int[][] startBoard;
-
-    /**
-     * A MoveHistory object representing the history of moves made during the game.
-     */
-    private MoveHistory moveHistory;
+    private final SolverEngine solverEngine;
 
     /**
      * Constructs a new SudokuGame object with the given GameConfig object.
@@ -59,22 +58,19 @@ public class SudokuGame {
      * @param config The GameConfig object containing the game configuration settings.
      */
     public SudokuGame(GameConfig config) {
-        this.board = new SudokuBoard(config.getSize());
-        this.scanner = new Scanner(System.in);
+        this.size = config.getSize();
+        this.scanner = GameUtils.scanner;
         this.playWithTimer = config.isPlayWithTimer();
         this.timer = new Timer();
-        this.moves = new ArrayList<>();
-        this.moveHistory = new MoveHistory();
+        this.solverEngine = config.getSolverEngine();
+        this.renderer = new TerminalRenderer(System.out);
     }
 
     /**
      * Clears the board and resets the game state.
      */
     public void clearBoard() {
-        board = new SudokuBoard(board.getSize());
-        moves.clear();
-        generatedCells = new boolean[board.getSize()][board.getSize()];
-        moveHistory = new MoveHistory();
+        engine = null;
     }
 
     /**
@@ -86,13 +82,9 @@ public class SudokuGame {
         clearBoard(); // Clear the board before starting a new game
         System.out.println("Welcome to Sudoku!");
 
-        SudokuGenerator generator = new SudokuGenerator(config);
-        int[][] sudokuGrid = generator.getSudokuGrid();
-        populateBoard(sudokuGrid);
-        startBoard = board.getBoard();
-
-        // Initialize generatedCells array
-        getGeneratedCells(sudokuGrid);
+        int[][] sudokuGrid = PuzzlePool.getDefault().take(config); // Pre-generated unless the pool ran dry
+        engine = new SudokuEngine(sudokuGrid, solverEngine);
+        boolean[][] generatedCells = engine.getGeneratedCells();
 
         // Initialize elapsed time
         if (playWithTimer) {
@@ -100,19 +92,21 @@ public class SudokuGame {
         }
 
         // Game loop
-        while (!isGameFinished()) {
+        while (!engine.isSolved()) {
             // Print elapsed time above the board if playing with timer
             if (playWithTimer) {
                 System.out.printf("\rTime elapsed: %s", timer.getElapsedTime());
             }
 
             System.out.println("\nCurrent board:");
-            board.printBoard(generatedCells); // Pass the generatedCells array as an argument
+            renderer.render(engine.snapshot(), generatedCells);
 
             System.out.println("Enter your move (row column value)\n'solve' to solve the puzzle\n'q' to quit\n'u' to undo\n'r' to redo:");
-            System.out.println("Remaining moves: " + getRemainingMoves());
+            System.out.println("Remaining moves: " + engine.getRemainingMoves());
 
-            // Read user input asynchronously
+            if (!scanner.hasNextLine()) {
+                break; // End of input, treated as quitting
+            }
             String input = scanner.nextLine();
 
             if (input.equalsIgnoreCase("q")) {
@@ -122,7 +116,7 @@ public class SudokuGame {
                 }
                 break;
             } else if (input.equalsIgnoreCase("solve")) {
-                solveBoard();
+                solveBoard(generatedCells);
                 System.out.printf("Time elapsed: %s \n", timer.getElapsedTime());
                 if (playWithTimer) {
                     timer.stop();
@@ -133,42 +127,21 @@ public class SudokuGame {
             } else if (input.equalsIgnoreCase("r")) {
                 redo();
             } else {
-                Move move = parseMove(input);
-                if (move != null) {
-                    moveHistory.addMove(move); // Add the move to the replay only if it's not null
-                    int row = move.getRow();
-                    int col = move.getCol();
-                    if (!generatedCells[row][col]) { // Check if the cell is empty
-                        board.setCellValue(row, col, move.getValue());
-                    } else {
-                        System.out.println("Cannot modify generated cells!");
-                    }
-                } else {
-                    System.out.println("Invalid input! Please enter in the format 'row column value'.");
-                }
+                applyMove(input);
             }
         }
 
-        // Stop the timer and get the elapsed time
-        // Add elapsedTime as a class-level variable
-        String elapsedTime;
+        // After the game is finished, prompt the user for next action
         if (playWithTimer) {
             timer.stop();
-            elapsedTime = timer.getElapsedTime();
-        } else {
-            elapsedTime = "0 minutes and 0 seconds";
         }
-
-        // After the game is finished, prompt the user for next action
         System.out.println("Game over!");
         System.out.println("1. Play another game");
         System.out.println("2. Save current replay");
         System.out.println("3. Load and replay saved game");
         System.out.println("4. Exit");
-        System.out.print("Enter the number corresponding to your choice: ");
 
-        int choice = scanner.nextInt();
-        scanner.nextLine(); // Consume newline character
+        int choice = GameUtils.getUserInput("Enter the number corresponding to your choice");
 
         switch (choice) {
             case 1:
@@ -184,9 +157,9 @@ public class SudokuGame {
                 break;
             case 3:
                 // Load and replay saved game
-                Replay loadedReplay = loadReplay();
+                ReplayCursor loadedReplay = loadReplay();
                 if (loadedReplay != null) {
-                    loadAndReplayGame(loadedReplay, board.getBoard());
+                    loadAndReplayGame(loadedReplay);
                 }
                 break;
             case 4:
@@ -210,15 +183,9 @@ public class SudokuGame {
         System.out.println("1. Easy");
         System.out.println("2. Medium");
         System.out.println("3. Hard");
-        System.out.print("Enter the number corresponding to your choice: ");
-        int difficulty = scanner.nextInt();
-        scanner.nextLine(); // Consume newline character
-
-        System.out.print("Do you want to play with a timer? (0 - no / 1 - yes): ");
-        boolean playWithTimer = scanner.nextInt() == 1;
-        scanner.nextLine(); // Consume newline character
-
-        return new GameConfig(9, difficulty, playWithTimer);
+        int difficulty = GameUtils.getUserInput("Enter the number corresponding to your choice");
+        boolean playWithTimer = GameUtils.getUserInput("Do you want to play with a timer? (0 - no / 1 - yes)") == 1;
+        return new GameConfig(size, difficulty, playWithTimer, solverEngine);
     }
 
     /**
@@ -229,34 +196,23 @@ public class SudokuGame {
         System.out.println("2. Load and replay saved game");
         System.out.println("3. Exit");
 
-        System.out.print("Enter your choice: ");
-        int choice = scanner.nextInt();
-        scanner.nextLine(); // Consume newline character
+        int choice = GameUtils.getUserInput("Enter your choice");
 
         switch (choice) {
             case 1:
+                if (engine == null) {
+                    System.out.println("Error: No game to save.");
+                    break;
+                }
                 // Prompt the user to enter the filename of the saved replay
                 System.out.print("Enter the filename of the saved replay: ");
                 String filename = scanner.nextLine();
 
                 // Save the initial board state and the replay data
-                try (PrintWriter writer = new PrintWriter(filename + ".txt")) {
-                    // Write the initial board state to the first lines of the file
-                    for (int[] ints : startBoard) {
-                        for (int anInt : ints) {
-                            writer.printf("%d ", anInt);
-                        }
-                        writer.println();
-                    }
-
-                    // Write the elapsed time
-                    writer.println(timer.getElapsedTime());
-
-                    // Write the moves in the format "row col val"
-                    for (Move move : moveHistory.moves) {
-                        writer.printf("%d %d %d\n", move.getRow(), move.getCol(), move.getValue());
-                    }
-                } catch (FileNotFoundException e) {
+                try {
+                    ReplayFiles.saveBinary(engine.toReplay(timer.getElapsedTime()),
+                            new File(filename + ReplayFiles.BINARY_EXTENSION));
+                } catch (IOException e) {
                     System.out.println("Error: File not found.");
                 }
 
@@ -264,10 +220,10 @@ public class SudokuGame {
                 break;
             case 2:
                 // Implement loading the replay from a file
-                Replay loadedReplay = loadReplay();
+                ReplayCursor loadedReplay = loadReplay();
                 if (loadedReplay != null) {
-                    loadAndReplayGame(loadedReplay, board.getBoard());
-                    System.out.println("Elapsed time: " + loadedReplay.getElapsedTime());
+                    loadAndReplayGame(loadedReplay);
+                    System.out.println("Elapsed time: " + loadedReplay.getHeader().getElapsedTime());
                 }
                 break;
             case 3:
@@ -280,282 +236,184 @@ public class SudokuGame {
     }
 
     /**
-     * Returns the number of remaining moves in the game.
+     * Opens a replay file for playback. A binary replay is read straight from the file; only a text
+     * replay is converted to the binary format first.
      *
-     * @return the number of remaining moves
+     * @return a cursor over the replay, or null if loading fails
      */
-    private int getRemainingMoves() {
-        int remainingMoves = 0;
-        for (int i = 0; i < board.getSize(); i++) {
-            for (int j = 0; j < board.getSize(); j++) {
-                if (board.getCellValue(i, j) == 0) {
-                    remainingMoves++;
-                }
-            }
-        }
-        return remainingMoves;
-    }
-
-    /**
-     * Loads a replay from a file.
-     *
-     * @return the loaded replay data, or null if loading fails
-     */
-    private Replay loadReplay() {
+    private ReplayCursor loadReplay() {
         // Prompt the user to enter the filename of the saved replay
         System.out.print("Enter the filename of the saved replay: ");
-        Scanner scanner = new Scanner(System.in);
         String filename = scanner.nextLine();
 
-        // Try to open the file and read the saved replay data
-        File file = new File(filename + ".txt");
+        // Try to open the file and read the saved replay data, preferring the binary format
+        File file = new File(filename + ReplayFiles.BINARY_EXTENSION);
+        if (!file.exists()) {
+            file = new File(filename + ReplayFiles.TEXT_EXTENSION);
+        }
         if (!file.exists()) {
             System.out.println("Error: File not found.");
             return null;
         }
 
-        int[][] initialBoard = new int[9][9];
-        List<Move> moves = new ArrayList<>();
-        String elapsedTime;
-
-        try (Scanner fileScanner = new Scanner(file)) {
-            // Read the sudoku board data
-            for (int i = 0; i < 9; i++) {
-                String[] rowData = fileScanner.nextLine().split(" ");
-                for (int j = 0; j < 9; j++) {
-                    initialBoard[i][j] = Integer.parseInt(rowData[j]);
-                }
-            }
-            System.out.println("Loaded Sudoku Board:");
-            printBoard(initialBoard);
-
-            // Read the elapsed time line
-            elapsedTime = fileScanner.nextLine();
-
-            // Read the moves data from the remaining lines of the file
-            while (fileScanner.hasNextLine()) {
-                String[] moveData = fileScanner.nextLine().split(" ");
-                int row = Integer.parseInt(moveData[0]);
-                int col = Integer.parseInt(moveData[1]);
-                int value = Integer.parseInt(moveData[2]);
-                moves.add(new Move(row, col, value));
+        ReplayCursor cursor;
+        try {
+            if (file.getName().endsWith(ReplayFiles.BINARY_EXTENSION)) {
+                cursor = ReplayCursor.open(file);
+            } else {
+                cursor = new ReplayCursor(ReplayFiles.loadEncoded(file));
             }
         } catch (FileNotFoundException e) {
             System.out.println("Error: File not found.");
             return null;
-        } catch (NumberFormatException e) {
+        } catch (IOException e) {
             System.out.println("Error: Invalid replay data.");
             return null;
         }
+        System.out.println("Loaded Sudoku Board:");
+        printBoard(cursor.getHeader().getBoard());
 
-        // Create a new SudokuBoard with the loaded initial board state
-        this.board = new SudokuBoard(9); // Assign the loaded board to the board field
-
-        // Initialize generatedCells array
-        getGeneratedCells(initialBoard);
-
-        // Populate the current board with the loaded data
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                if (generatedCells[i][j]) {
-                    board.setCellValue(i, j, initialBoard[i][j]);
-                } else {
-                    board.setCellValue(i, j, 0);
-                }
-            }
-        }
-
-        // Return the Replay object created from the saved replay data
-        return new Replay(initialBoard, moves, elapsedTime);
+        // Return the cursor positioned before the first move
+        return cursor;
     }
 
     /**
-     * Initializes the generatedCells array based on the initial board state.
+     * Prints the board to the console.
      *
-     * @param initialBoard the initial board state
+     * @param board the board to print
      */
-    private void getGeneratedCells(int[][] initialBoard) {
-        generatedCells = new boolean[board.getSize()][board.getSize()];
-        for (int i = 0; i < board.getSize(); i++) {
-            for (int j = 0; j < board.getSize(); j++) {
-                generatedCells[i][j] = initialBoard[i][j] != 0;
-            }
-        }
+    private void printBoard(int[][] board) {
+        renderer.render(board);
     }
 
     /**
-     * Prints the board to the console.
+     * Replays a game from a saved replay, letting the user step through it in either direction
+     * or jump to any move.
      *
-     * @param board the board to print
+     * @param cursor the cursor over the replay, positioned before the first move
      */
-    private void printBoard(int[][] board) {
-        // Print column numbers
-        System.out.print("  ");
-        for (int i = 0; i < 9; i++) {
-            System.out.print(i + " ");
-            if ((i + 1) % 3 == 0 && i < 9 - 1) {
-                System.out.print(" ");
-            }
-        }
-        System.out.println();
-
-        // Print horizontal line
-        System.out.print(" ");
-        for (int i = 0; i < 9 + (9 / 3 - 1); i++) {
-            System.out.print("--");
-        }
-        System.out.println();
-
-        // Print board contents
-        for (int i = 0; i < 9; i++) {
-            // Print row number
-            System.out.print(i + "|");
-
-            for (int j = 0; j < 9; j++) {
-                if (board[i][j] == 0) { // Check if the cell value is zero
-                    System.out.print("\u001B[32m" + board[i][j] + " " + "\u001B[0m"); // Blue color
-                } else {
-                    System.out.print("\u001B[34m" + board[i][j] + " " + "\u001B[0m"); // Green color
+    private void loadAndReplayGame(ReplayCursor cursor) {
+        renderer.invalidate(); // Start playback on a cleared screen
+        boolean[][] generatedCells = getGeneratedCells(cursor.getHeader().getBoard());
+        try {
+            while (true) {
+                System.out.println("Enter 'n' for the next move, 'p' for the previous move, a move number (0-"
+                        + cursor.getMoveCount() + ") to jump to it, 'a' to play to the end or 'q' to stop:");
+                if (!scanner.hasNextLine()) {
+                    break;
                 }
-
-                if ((j + 1) % 3 == 0 && j < 9 - 1) {
-                    System.out.print("| ");
-                }
-            }
-            System.out.println();
-
-            // Print horizontal line after every 3 rows
-            if ((i + 1) % 3 == 0 && i < 9 - 1) {
-                System.out.print(" ");
-                for (int j = 0; j < 9 + (9 / 3 - 1); j++) {
-                    System.out.print("--");
+                String input = scanner.nextLine().trim();
+                if (input.equalsIgnoreCase("q")) {
+                    break;
+                } else if (input.equalsIgnoreCase("n")) {
+                    if (cursor.next() == null) {
+                        System.out.println("End of replay.");
+                        continue;
+                    }
+                    printReplayPosition(cursor, generatedCells);
+                } else if (input.equalsIgnoreCase("p")) {
+                    if (!cursor.previous()) {
+                        System.out.println("Start of replay.");
+                        continue;
+                    }
+                    printReplayPosition(cursor, generatedCells);
+                } else if (input.equalsIgnoreCase("a")) {
+                    while (cursor.next() != null) {
+                        printReplayPosition(cursor, generatedCells);
+                    }
+                } else if (input.matches("\\d{1,9}") && Integer.parseInt(input) <= cursor.getMoveCount()) {
+                    cursor.seek(Integer.parseInt(input));
+                    printReplayPosition(cursor, generatedCells);
+                } else {
+                    System.out.println("Invalid input!");
                 }
-                System.out.println();
             }
+        } catch (IOException e) {
+            System.out.println("Error: Invalid replay data.");
         }
     }
 
     /**
-     * Loads and replays a game from a saved replay.
+     * Returns which cells of a start board were generated (pre-filled).
      *
-     * @param replay       the replay data
      * @param initialBoard the initial board state
+     * @return the generated cells array
      */
-    private void loadAndReplayGame(Replay replay, int[][] initialBoard) {
-        // Reset the board to its initial state
-        board.setBoard(initialBoard);
-
-        // Replay the moves
-        int i = 0;
-        for (Move move : replay.getMoves()) {
-            i++;
-            int row = move.getRow();
-            int col = move.getCol();
-            System.out.println(board.getCellValue(row, col));
-            if (board.isValidMove(row, col, move.getValue())) {
-                board.setCellValue(row, col, move.getValue());
-                System.out.println("Replaying move: " + i);
-                System.out.println("Current board:");
-                board.printBoard(generatedCells);
-            } else {
-                System.out.println("Invalid move! Skipping...");
+    private static boolean[][] getGeneratedCells(int[][] initialBoard) {
+        int size = initialBoard.length;
+        boolean[][] generatedCells = new boolean[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                generatedCells[i][j] = initialBoard[i][j] != 0;
             }
         }
+        return generatedCells;
     }
 
     /**
-     * Parses a user input string into a Move object.
+     * Shows the move a replay cursor has just reached and the board after it.
+     * Only the cells that changed since the last position are redrawn.
      *
-     * @param input the user input string
-     * @return the parsed Move object, or null if parsing fails
+     * @param cursor         the replay cursor
+     * @param generatedCells which cells were generated (pre-filled)
      */
-    private Move parseMove(String input) {
-        Pattern pattern = Pattern.compile("(\\d+) (\\d+) (\\d+)");
-        Matcher matcher = pattern.matcher(input);
-
-        if (matcher.find()) {
-            int row = Integer.parseInt(matcher.group(1));
-            int col = Integer.parseInt(matcher.group(2));
-            int value = Integer.parseInt(matcher.group(3));
-
-            if (board.isValidMove(row, col, value)) {
-                return new Move(row, col, value);
-            } else {
-                System.out.println("Invalid move! Please try again.");
-            }
-        } else {
-            System.out.println("Invalid input! Please enter in the format 'row column value'.");
+    private void printReplayPosition(ReplayCursor cursor, boolean[][] generatedCells) {
+        String caption = "Replaying move: " + cursor.getPosition() + " of " + cursor.getMoveCount();
+        if (cursor.getPosition() > 0 && !cursor.isLastMoveApplied()) {
+            caption += " - Invalid move! Skipped.";
         }
-        return null;
+        renderer.renderDiff(caption, cursor.getBoard(), generatedCells);
     }
 
     /**
-     * Populates the board with the given Sudoku grid.
+     * Parses a user input string as a move and applies it to the engine, reporting a rejected move.
      *
-     * @param sudokuGrid the Sudoku grid
+     * @param input the user input string, in the format 'row column value'
      */
-    private void populateBoard(int[][] sudokuGrid) {
-        int size = board.getSize();
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                int value = sudokuGrid[i][j];
-                if (value != 0) {
-                    board.setCellValue(i, j, value);
-                }
-            }
+    private void applyMove(String input) {
+        Matcher matcher = MOVE_PATTERN.matcher(input);
+        if (!matcher.find()) {
+            System.out.println("Invalid input! Please enter in the format 'row column value'.");
+            return;
         }
-    }
-
-    /**
-     * Solves the Sudoku puzzle using a SudokuSolver.
-     */
-    private void solveBoard() {
-        System.out.println("\nSolving the Sudoku puzzle...\n");
-        SudokuSolver solver = new SudokuSolver(board.getBoard());
-        int[][] solvedGrid = solver.solve();
-        if (solvedGrid != null) {
-            board.setBoard(solvedGrid); // Update the boardwith the solved grid
-            System.out.println("Solved board:");
-            board.printBoard(generatedCells);
+        int row;
+        int col;
+        int value;
+        try {
+            row = Integer.parseInt(matcher.group(1));
+            col = Integer.parseInt(matcher.group(2));
+            value = Integer.parseInt(matcher.group(3));
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid move! Please try again.");
+            return;
+        }
+        switch (engine.applyMove(row, col, value)) {
+            case OK -> { }
+            case GENERATED_CELL -> System.out.println("Cannot modify generated cells!");
+            default -> System.out.println("Invalid move! Please try again.");
         }
     }
 
     /**
-     * Checks if the game is finished (i.e., all cells are filled and the board is valid).
+     * Solves the Sudoku puzzle using the configured solver engine and shows the result.
      *
-     * @return true if the game is finished, false otherwise
+     * @param generatedCells which cells were generated (pre-filled)
      */
-    private boolean isGameFinished() {
-        // Check if all cells are filled
-        for (int i = 0; i < board.getSize(); i++) {
-            for (int j = 0; j < board.getSize(); j++) {
-                if (board.getCellValue(i, j) == 0) {
-                    return false;
-                }
-            }
-        }
-
-        // Check if the board is valid (no conflicts)
-        for (int i = 0; i < board.getSize(); i++) {
-            for (int j = 0; j < board.getSize(); j++) {
-                int value = board.getCellValue(i, j);
-                board.setCellValue(i, j, 0); // Temporarily remove the value
-                if (!board.isValidMove(i, j, value)) {
-                    return false;
-                }
-                board.setCellValue(i, j, value); // Restore the value
-            }
+    private void solveBoard(boolean[][] generatedCells) {
+        System.out.println("\nSolving the Sudoku puzzle...\n");
+        if (engine.solve() == SudokuEngine.Result.OK) {
+            System.out.println("Solved board:");
+            renderer.render(engine.snapshot(), generatedCells);
+        } else {
+            System.out.println("No solution exists for the given Sudoku puzzle.");
         }
-        return true;
     }
 
     /**
      * Undoes the last move in the game history.
      */
     public void undo() {
-        Move lastMove = moveHistory.undo();
-        if (lastMove != null) {
-            board.setCellValue(lastMove.getRow(), lastMove.getCol(), 0);
+        if (engine != null && engine.undo() == SudokuEngine.Result.OK) {
             System.out.println("Undo completed");
         } else {
             System.out.println("No moves to undo.");
@@ -566,12 +424,10 @@ public class SudokuGame {
      * Redoes the last undone move in the game history.
      */
     public void redo() {
-        Move lastUndoneMove = moveHistory.redo();
-        if (lastUndoneMove != null) {
-            board.setCellValue(lastUndoneMove.getRow(), lastUndoneMove.getCol(), lastUndoneMove.getValue());
+        if (engine != null && engine.redo() == SudokuEngine.Result.OK) {
             System.out.println("Redo completed");
         } else {
             System.out.println("No moves to redo.");
         }
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,52 @@
+import java.util.Arrays;
 import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * Generates a Sudoku puzzle with a given difficulty level.
+ * On 9x9 boards the difficulty levels are targets for the hardest human technique the puzzle needs,
+ * as rated by DifficultyGrader: singles for easy, intersections and pairs for medium, and fish or chains
+ * for hard. The fill percentage of each level sets how many cells are removed at least.
  */
 public class SudokuGenerator {
+    /**
+     * The number of search nodes after which a uniqueness check gives up and keeps the cell filled.
+     */
+    private static final long UNIQUENESS_NODE_BUDGET = 100_000;
+
+    /**
+     * The number of search nodes after which completing the filled diagonal is abandoned and retried.
+     */
+    private static final long FILL_NODE_BUDGET = 20_000;
+
+    /**
+     * The number of uniqueness checks in a row that may run out of budget before digging stops.
+     */
+    private static final int MAX_UNPROVEN_CHECKS = 3;
+
+    /**
+     * The largest subgrid size whose full grid is completed by search; larger boards use a shuffled pattern,
+     * because search from random diagonal subgrids has a heavy-tailed running time at 25x25 and beyond.
+     */
+    private static final int MAX_SEARCH_SUBGRID_SIZE = 4;
+
+    /**
+     * The only board size whose puzzles are graded: 4x4 puzzles never need more than singles,
+     * and grading every removal is too slow on larger boards.
+     */
+    private static final int GRADED_SIZE = 9;
+
+    /**
+     * The number of puzzles dug before settling for the hardest one found below the target.
+     */
+    private static final int MAX_GRADE_ATTEMPTS = 10;
+
     private final int[][] grid;
     private final int size;
-    private final Random random;
+    private final int subgridSize;
+    private final RandomGenerator random;
+    private final DifficultyGrader grader;
+    private DifficultyGrader.Technique technique;
 
     /**
      * Constructs a new SudokuGenerator object with a given GameConfig object.
@@ -14,9 +54,23 @@ public class SudokuGenerator {
      * @param config the game configuration
      */
     public SudokuGenerator(GameConfig config) {
+        this(config, new Random());
+    }
+
+    /**
+     * Constructs a new SudokuGenerator object with a given GameConfig object and source of randomness.
+     * Callers generating on several threads should give each thread its own generator,
+     * such as a split of a SplittableRandom.
+     *
+     * @param config the game configuration
+     * @param random the source of randomness for filling and digging the grid
+     */
+    public SudokuGenerator(GameConfig config, RandomGenerator random) {
         this.size = config.getSize();
+        this.subgridSize = SudokuBoard.boxSizeFor(size);
         this.grid = new int[size][size];
-        this.random = new Random();
+        this.random = random;
+        this.grader = size == GRADED_SIZE ? new DifficultyGrader(size) : null;
         generateSudoku(config.getDifficulty());
     }
 
@@ -26,8 +80,6 @@ public class SudokuGenerator {
      * @param difficulty the difficulty level (1-3) or a custom value
      */
     private void generateSudoku(int difficulty) {
-        fillDiagonalSubgrid();
-        solveSudoku();
         int filledCellsPercentage;
         if (difficulty < 0) {
             filledCellsPercentage = -difficulty; // Custom difficulty, use the absolute value
@@ -39,155 +91,148 @@ public class SudokuGenerator {
                 default -> 50; // Default to easy difficulty
             };
         }
-        removeNumbers(filledCellsPercentage);
-    }
-
-    /**
-     * Fills the diagonal subgrids of the Sudoku puzzle.
-     */
-
-    private void fillDiagonalSubgrid() {
-        int subgridSize = (int) Math.sqrt(size);
-        for (int i = 0; i < size; i += subgridSize) {
-            fillSubgrid(i, i);
+        if (grader == null || difficulty < 0) {
+            fillGrid();
+            removeNumbers(filledCellsPercentage, null, null);
+            return;
         }
-    }
 
-    /**
-     * Fills a single subgrid of the Sudoku puzzle.
-     *
-     * @param startRow the starting row of the subgrid
-     * @param startCol the starting column of the subgrid
-     */
-    private void fillSubgrid(int startRow, int startCol) {
-        int[] numbers = {1, 2, 3, 4, 5, 6, 7, 8, 9};
-        shuffleArray(numbers);
-        int idx = 0;
-        int subgridSize = (int) Math.sqrt(size);
-        for (int i = 0; i < subgridSize; i++) {
-            for (int j = 0; j < subgridSize; j++) {
-                grid[startRow + i][startCol + j] = numbers[idx++];
+        DifficultyGrader.Technique floor = switch (difficulty) {
+            case 2 -> DifficultyGrader.Technique.POINTING;
+            case 3 -> DifficultyGrader.Technique.X_WING;
+            default -> DifficultyGrader.Technique.HIDDEN_SINGLE;
+        };
+        DifficultyGrader.Technique ceiling = switch (difficulty) {
+            case 2 -> DifficultyGrader.Technique.HIDDEN_PAIR;
+            case 3 -> DifficultyGrader.Technique.XY_CHAIN;
+            default -> DifficultyGrader.Technique.NAKED_SINGLE;
+        };
+        int[][] best = new int[size][size];
+        DifficultyGrader.Technique bestTechnique = null;
+        for (int attempt = 0; attempt < MAX_GRADE_ATTEMPTS; attempt++) {
+            fillGrid();
+            DifficultyGrader.Technique graded = removeNumbers(filledCellsPercentage, floor, ceiling);
+            if (graded.compareTo(floor) >= 0) {
+                technique = graded;
+                return;
             }
+            if (bestTechnique == null || graded.compareTo(bestTechnique) > 0) {
+                bestTechnique = graded;
+                for (int row = 0; row < size; row++) {
+                    System.arraycopy(grid[row], 0, best[row], 0, size);
+                }
+            }
+        }
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(best[row], 0, grid[row], 0, size); // Settle for the hardest puzzle dug
         }
+        technique = bestTechnique;
     }
 
     /**
-     * Solves the Sudoku puzzle using a recursive backtracking algorithm.
+     * Fills the grid with a random complete solution.
      */
-    private void solveSudoku() {
-        solveSudoku(0, 0);
+    private void fillGrid() {
+        if (subgridSize <= MAX_SEARCH_SUBGRID_SIZE) {
+            do {
+                for (int[] row : grid) {
+                    Arrays.fill(row, 0);
+                }
+                fillDiagonalSubgrid(); // Some diagonal fillings cannot be completed, or not quickly
+            } while (!solveSudoku());
+        } else {
+            fillShuffledPattern();
+        }
     }
 
     /**
-     * Recursive helper method for solving the Sudoku puzzle.
-     *
-     * @param row the current row
-     * @param col the current column
-     * @return true if the puzzle is solved, false otherwise
+     * Fills the diagonal subgrids of the Sudoku puzzle.
      */
-    private boolean solveSudoku(int row, int col) {
-        if (row == size) {
-            return true; // Puzzle solved
-        }
 
-        if (col == size) {
-            return solveSudoku(row + 1, 0); // Move to the next row
+    private void fillDiagonalSubgrid() {
+        for (int i = 0; i < size; i += subgridSize) {
+            fillSubgrid(i, i);
         }
+    }
 
-        if (grid[row][col] != 0) {
-            return solveSudoku(row, col + 1); // Skip filled cells
+    /**
+     * Fills the whole grid from the standard cyclic pattern, shuffling digits, bands, stacks,
+     * and the rows and columns within them. Each of these shuffles keeps the grid valid.
+     */
+    private void fillShuffledPattern() {
+        int[] digits = new int[size];
+        for (int i = 0; i < size; i++) {
+            digits[i] = i + 1;
         }
-
-        for (int num = 1; num <= size; num++) {
-            if (isValidMove(row, col, num)) {
-                grid[row][col] = num;
-                if (solveSudoku(row, col + 1)) {
-                    return true;
-                }
-                grid[row][col] = 0; // Backtrack
+        shuffleArray(digits);
+        int[] rows = shuffledLines();
+        int[] cols = shuffledLines();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int row = rows[i];
+                int col = cols[j];
+                grid[i][j] = digits[(subgridSize * (row % subgridSize) + row / subgridSize + col) % size];
             }
         }
-
-        return false; // No valid number found
     }
 
     /**
-     * Checks if a given number is valid in a given position.
+     * Returns a random order of the rows (or columns) of the grid that keeps every band (or stack) together.
      *
-     * @param row the row
-     * @param col the column
-     * @param num the number to check
-     * @return true if the number is valid, false otherwise
+     * @return the shuffled line indices
      */
-    private boolean isValidMove(int row, int col, int num) {
-        return isRowValid(row, num) && isColValid(col, num) && isSubgridValid(row, col, num);
-    }
-
-    /**
-     * Checks if a given number is valid in a given row.
-     *
-     * @param row the row
-     * @param num the number to check
-     * @return true if the number is valid, false otherwise
-     */
-    private boolean isRowValid(int row, int num) {
-        for (int col = 0; col < size; col++) {
-            if (grid[row][col] == num) {
-                return false;
+    private int[] shuffledLines() {
+        int[] bands = new int[subgridSize];
+        for (int i = 0; i < subgridSize; i++) {
+            bands[i] = i;
+        }
+        shuffleArray(bands);
+        int[] lines = new int[size];
+        int[] within = new int[subgridSize];
+        for (int band = 0; band < subgridSize; band++) {
+            for (int i = 0; i < subgridSize; i++) {
+                within[i] = i;
+            }
+            shuffleArray(within);
+            for (int i = 0; i < subgridSize; i++) {
+                lines[band * subgridSize + i] = bands[band] * subgridSize + within[i];
             }
         }
-        return true;
+        return lines;
     }
 
     /**
-     * Checks if a given number is valid in a given column.
+     * Fills a single subgrid of the Sudoku puzzle.
      *
-     * @param col the column
-     * @param num the number to check
-     * @return true if the number is valid, false otherwise
+     * @param startRow the starting row of the subgrid
+     * @param startCol the starting column of the subgrid
      */
-    private boolean isColValid(int col, int num) {
-        for (int row = 0; row < size; row++) {
-            if (grid[row][col] == num) {
-                return false;
+    private void fillSubgrid(int startRow, int startCol) {
+        int[] numbers = new int[size];
+        for (int i = 0; i < size; i++) {
+            numbers[i] = i + 1;
+        }
+        shuffleArray(numbers);
+        int idx = 0;
+        for (int i = 0; i < subgridSize; i++) {
+            for (int j = 0; j < subgridSize; j++) {
+                grid[startRow + i][startCol + j] = numbers[idx++];
             }
         }
-        return true;
     }
 
     /**
-     * Checks if a given number is valid in a given subgrid.
+     * Completes the grid around the filled diagonal subgrids.
+     * Constraint propagation fills the forced cells first and the remaining cells are searched by SudokuSolver.
+     * The search is cut off after a node budget, since on 16x16 boards an unlucky diagonal can send it
+     * into a very long tail; the caller then starts over from a new diagonal.
      *
-     * @param row the row
-     * @param col the column
-     * @param num the number to check
-     * @return true if the number is valid, false otherwise
+     * @return true if the grid was completed, false otherwise
      */
-    private boolean isSubgridValid(int row, int col, int num) {
-        return getSubgridSize(row, col, num, size, grid);
-    }
-    /**
-     * Checks if a given number is valid in a given subgrid.
-     *
-     * @param row the row
-     * @param col the column
-     * @param num the number to check
-     * @param size the size of the Sudoku puzzle
-     * @param grid the Sudoku puzzle grid
-     * @return true if the number is valid in the subgrid, false otherwise
-     */
-    static boolean getSubgridSize(int row, int col, int num, int size, int[][] grid) {
-        int subgridSize = (int) Math.sqrt(size);
-        int startRow = row - row % subgridSize;
-        int startCol = col - col % subgridSize;
-        for (int i = 0; i < subgridSize; i++) {
-            for (int j = 0; j < subgridSize; j++) {
-                if (grid[startRow + i][startCol + j] == num) {
-                    return false;
-                }
-            }
-        }
-        return true;
+    private boolean solveSudoku() {
+        SudokuSolver solver = new SudokuSolver(grid);
+        solver.setNodeLimit(FILL_NODE_BUDGET);
+        return solver.solve() != null;
     }
 
     /**
@@ -205,20 +250,56 @@ public class SudokuGenerator {
     }
     /**
      * Removes numbers from the Sudoku puzzle to create a solvable puzzle.
+     * Cells are blanked in random order and a removal is kept only while the puzzle still has exactly
+     * one solution, so fewer cells than requested may be removed. Digging also stops once several checks
+     * in a row run out of budget, which bounds generation time on large boards.
+     * When graded, a removal is also undone if the puzzle would then need a technique harder than the
+     * ceiling, and digging goes on past the requested fill until the puzzle needs the floor technique.
      *
      * @param filledCellsPercentage the percentage of cells to fill
+     * @param floor                 the easiest technique the puzzle should need, or null if ungraded
+     * @param ceiling               the hardest technique the puzzle may need, or null if ungraded
+     * @return the hardest technique the dug puzzle needs, or null if ungraded
      */
-    private void removeNumbers(int filledCellsPercentage) {
+    private DifficultyGrader.Technique removeNumbers(int filledCellsPercentage, DifficultyGrader.Technique floor,
+                                                    DifficultyGrader.Technique ceiling) {
         int cellsToRemove = (size * size * (100 - filledCellsPercentage)) / 100;
-        while (cellsToRemove > 0) {
-            int row = random.nextInt(size);
-            int col = random.nextInt(size);
-            if (grid[row][col] != 0) {
-                grid[row][col] = 0;
+        DifficultyGrader.Technique current = floor == null ? null : DifficultyGrader.Technique.HIDDEN_SINGLE;
+        int[] cells = new int[size * size];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        shuffleArray(cells);
+        int unprovenChecks = 0;
+        for (int i = 0; i < cells.length && unprovenChecks < MAX_UNPROVEN_CHECKS
+                && (cellsToRemove > 0 || current != null && current.compareTo(floor) < 0); i++) {
+            int row = cells[i] / size;
+            int col = cells[i] % size;
+            int value = grid[row][col];
+            grid[row][col] = 0;
+            int solutions = SolutionCounter.countSolutions(grid, 2, UNIQUENESS_NODE_BUDGET);
+            DifficultyGrader.Technique graded = solutions == 1 && ceiling != null ? grader.grade(grid) : null;
+            if (solutions == 1 && (ceiling == null || graded.compareTo(ceiling) <= 0)) {
                 cellsToRemove--;
+                unprovenChecks = 0;
+                current = graded;
+            } else {
+                grid[row][col] = value; // Removal would make the puzzle ambiguous, too hard, or is too costly to prove unique
+                unprovenChecks = solutions == SolutionCounter.UNKNOWN ? unprovenChecks + 1 : 0;
             }
         }
+        return current;
     }
+
+    /**
+     * Returns the hardest technique the generated puzzle needs.
+     *
+     * @return the hardest technique, or null if the puzzle was not graded (custom difficulty or a board other than 9x9)
+     */
+    public DifficultyGrader.Technique getTechnique() {
+        return technique;
+    }
+
     /**
      * Returns the generated Sudoku puzzle as a 2D array.
      *
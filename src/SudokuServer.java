@@ -0,0 +1,830 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Serves the generator, the solvers, board validation and grading as JSON over HTTP, using the JDK's
+ * built-in server so callers need no Java code.
+ * The puzzle endpoints take a batch: {@code {"puzzles": [...]}} (or a single {@code "puzzle"}) and answers
+ * with one result per puzzle, in order. A puzzle is a flat array of size * size numbers, an array of rows,
+ * or, up to 9x9, a string of digits with '0' or '.' for empty cells, as in batch input files.
+ * {@code POST /solve?stream=true} (or {@code Accept: application/x-ndjson}) streams one JSON line per
+ * puzzle as soon as it is solved instead of one document at the end.
+ * {@code POST /game/new}, {@code /game/move}, {@code /game/undo} and {@code /game/redo} play live games kept
+ * in a SessionStore, so a client only sends the game id and its move.
+ * {@code GET /metrics} reports the request count, errors, puzzles and latency percentiles of every endpoint.
+ * Each request runs on its own virtual thread when the JVM has them, and on a pool of
+ * {@value #FALLBACK_THREADS} platform threads otherwise.
+ */
+public class SudokuServer {
+    /**
+     * The default port of the server.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * The largest number of puzzles in one request.
+     */
+    public static final int MAX_BATCH = 10_000;
+
+    /**
+     * The largest number of cells, summed over all puzzles, that one generate request may ask for:
+     * about 800 puzzles of 9x9 or 16 of 64x64.
+     */
+    public static final int MAX_GENERATED_CELLS = 1 << 16;
+
+    /**
+     * The number of search nodes after which a solve gives up and reports {@code "solved": null}.
+     */
+    public static final long SOLVE_NODE_LIMIT = 2_000_000;
+
+    /**
+     * The smallest board size solved through the solution cache. Smaller boards solve faster than they
+     * canonicalize (see the solve.cached benchmarks), so they skip the cache.
+     */
+    public static final int MIN_CACHED_SIZE = 16;
+
+    /**
+     * The largest request body accepted, in bytes.
+     */
+    private static final int MAX_BODY_BYTES = 16 << 20;
+
+    /**
+     * The number of platform threads used when virtual threads are not available.
+     */
+    private static final int FALLBACK_THREADS = 64;
+
+    /**
+     * The number of connections the operating system may queue before the server accepts them.
+     */
+    private static final int BACKLOG = 1024;
+
+    /**
+     * The default memory cap of the live games, in megabytes.
+     */
+    private static final long DEFAULT_SESSION_MEGABYTES = 512;
+
+    /**
+     * The default time after which an untouched live game is evicted, in minutes.
+     */
+    private static final long DEFAULT_IDLE_MINUTES = 30;
+
+    private static final String JSON = "application/json";
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SolverEngine solverEngine;
+    private final SessionStore sessions;
+    private final Map<String, Endpoint> endpoints;
+
+    /**
+     * Constructs a new SudokuServer object bound to an address; call {@link #start()} to serve requests.
+     *
+     * @param address      the address to listen on; port 0 picks a free port
+     * @param solverEngine the engine used to solve puzzles unless a request names another
+     * @param sessions     the store of live games
+     * @throws IOException if the address cannot be bound
+     */
+    public SudokuServer(InetSocketAddress address, SolverEngine solverEngine, SessionStore sessions) throws IOException {
+        this.solverEngine = solverEngine;
+        this.sessions = sessions;
+        this.server = HttpServer.create(address, BACKLOG);
+        ExecutorService virtualThreads = GameUtils.newVirtualThreadExecutor();
+        this.executor = virtualThreads != null ? virtualThreads : Executors.newFixedThreadPool(FALLBACK_THREADS);
+        this.server.setExecutor(executor);
+        this.endpoints = new LinkedHashMap<>();
+        addEndpoint("/generate", "POST", this::generate);
+        addEndpoint("/solve", "POST", this::solve);
+        addEndpoint("/validate", "POST", this::validate);
+        addEndpoint("/grade", "POST", this::grade);
+        addEndpoint("/game/new", "POST", this::newGame);
+        addEndpoint("/game/move", "POST", this::move);
+        addEndpoint("/game/undo", "POST", this::undo);
+        addEndpoint("/game/redo", "POST", this::redo);
+        addEndpoint("/metrics", "GET", this::metrics);
+    }
+
+    /**
+     * Runs the server from command-line arguments:
+     * {@code [--host H] [--port P] [--solver backtracking|dlx|parallel] [--session-mb MB] [--idle-minutes M]}.
+     * The server listens on localhost unless another host is given, and runs until the process is stopped.
+     *
+     * @param args the arguments following {@code --serve}
+     */
+    public static void run(String[] args) {
+        String host = "127.0.0.1";
+        int port = DEFAULT_PORT;
+        SolverEngine engine = SolverEngine.BACKTRACKING;
+        long sessionMegabytes = DEFAULT_SESSION_MEGABYTES;
+        long idleMinutes = DEFAULT_IDLE_MINUTES;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--host" -> host = args[++i];
+                    case "--port" -> port = Integer.parseInt(args[++i]);
+                    case "--solver" -> engine = SolverEngine.fromName(args[++i]);
+                    case "--session-mb" -> sessionMegabytes = Long.parseLong(args[++i]);
+                    case "--idle-minutes" -> idleMinutes = Long.parseLong(args[++i]);
+                    default -> throw new IllegalArgumentException();
+                }
+            }
+            if (port < 0 || port > 65535 || sessionMegabytes < 1 || idleMinutes < 1) {
+                throw new IllegalArgumentException();
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Usage: java Main --serve [--host H] [--port P] [--solver backtracking|dlx|parallel]"
+                    + " [--session-mb MB] [--idle-minutes M]");
+            return;
+        }
+
+        try {
+            SessionStore sessions = new SessionStore(sessionMegabytes << 20, idleMinutes * 60_000,
+                    SessionStore.DEFAULT_STRIPES);
+            SudokuServer sudokuServer = new SudokuServer(new InetSocketAddress(host, port), engine, sessions);
+            sudokuServer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> sudokuServer.stop(0)));
+            System.err.println("Listening on http://" + host + ":" + sudokuServer.getPort());
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts serving requests in the background.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, waiting for running requests up to a delay.
+     *
+     * @param delaySeconds the longest time to wait for running requests, in seconds
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Registers an endpoint with its own metrics.
+     *
+     * @param path    the path of the endpoint
+     * @param method  the HTTP method it accepts
+     * @param handler the code that answers a request
+     */
+    private void addEndpoint(String path, String method, Handler handler) {
+        Endpoint endpoint = new Endpoint(path, method, handler);
+        endpoints.put(path, endpoint);
+        server.createContext(path, endpoint::handle);
+    }
+
+    /**
+     * Generates puzzles: {@code {"size": 9, "difficulty": 1, "count": 1}}, every member optional.
+     *
+     * @param exchange the request
+     * @param request  the parsed request body
+     * @return the number of puzzles generated
+     * @throws IOException if the response cannot be sent
+     */
+    private int generate(HttpExchange exchange, Map<String, Object> request) throws IOException {
+        int size = intMember(request, "size", 9);
+        int difficulty = intMember(request, "difficulty", 1);
+        int count = intMember(request, "count", 1);
+        try {
+            SudokuBoard.boxSizeFor(size);
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "Unsupported size: " + size);
+        }
+        if (count < 1 || count > MAX_BATCH) {
+            throw new HttpError(400, "count must be between 1 and " + MAX_BATCH);
+        }
+        if ((long) count * size * size > MAX_GENERATED_CELLS) {
+            throw new HttpError(400, "count must be at most " + MAX_GENERATED_CELLS / (size * size)
+                    + " for size " + size);
+        }
+        GameConfig config = new GameConfig(size, difficulty, false);
+        StringBuilder response = new StringBuilder("{\"puzzles\":[");
+        int[] cells = new int[size * size];
+        for (int i = 0; i < count; i++) {
+            int[][] grid = new SudokuGenerator(config, ThreadLocalRandom.current()).getSudokuGrid();
+            for (int row = 0; row < size; row++) {
+                System.arraycopy(grid[row], 0, cells, row * size, size);
+            }
+            if (i > 0) {
+                response.append(',');
+            }
+            Json.appendCells(response, cells);
+        }
+        sendJson(exchange, 200, response.append("]}"));
+        return count;
+    }
+
+    /**
+     * Solves puzzles: {@code {"puzzles": [...], "solver": "dlx"}}, the solver optional.
+     * Each result is {@code {"solved": true, "solution": [...]}}, {@code {"solved": false}}, or
+     * {@code {"solved": null}} if the solver gave up after {@value #SOLVE_NODE_LIMIT} search nodes.
+     * Solutions of equivalent puzzles solved before come from the shared solution cache.
+     *
+     * @param exchange the request
+     * @param request  the parsed request body
+     * @return the number of puzzles solved or found unsolvable
+     * @throws IOException if the response cannot be sent
+     */
+    private int solve(HttpExchange exchange, Map<String, Object> request) throws IOException {
+        List<int[]> puzzles = puzzlesOf(request);
+        SolverEngine engine = solverEngine;
+        if (request.get("solver") instanceof String name) {
+            try {
+                engine = SolverEngine.fromName(name);
+            } catch (IllegalArgumentException e) {
+                throw new HttpError(400, e.getMessage());
+            }
+        }
+        SolutionCache cache = SolutionCache.getDefault();
+        Map<Integer, SolverWorkspace> workspaces = new LinkedHashMap<>(); // Per size, reused across the batch
+
+        if (isStreaming(exchange)) {
+            exchange.getResponseHeaders().set("Content-Type", NDJSON);
+            exchange.sendResponseHeaders(200, 0); // Chunked
+            try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody())) {
+                StringBuilder line = new StringBuilder();
+                for (int i = 0; i < puzzles.size(); i++) {
+                    line.setLength(0);
+                    line.append("{\"index\":").append(i).append(',');
+                    appendSolveResult(line, puzzles.get(i), engine, cache, workspaces).append("}\n");
+                    out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+                    out.flush(); // Hand each result to the client as soon as it is ready
+                }
+            }
+            return puzzles.size();
+        }
+
+        StringBuilder response = new StringBuilder("{\"results\":[");
+        for (int i = 0; i < puzzles.size(); i++) {
+            if (i > 0) {
+                response.append(',');
+            }
+            response.append('{');
+            appendSolveResult(response, puzzles.get(i), engine, cache, workspaces).append('}');
+        }
+        sendJson(exchange, 200, response.append("]}"));
+        return puzzles.size();
+    }
+
+    /**
+     * Solves one puzzle and appends the members of its result.
+     *
+     * @param out        the builder to append to
+     * @param cells      the puzzle; replaced by the solution
+     * @param engine     the solver engine
+     * @param cache      the solution cache
+     * @param workspaces the backtracking workspaces of the request by size
+     * @return the builder
+     */
+    private static StringBuilder appendSolveResult(StringBuilder out, int[] cells, SolverEngine engine,
+                                                   SolutionCache cache, Map<Integer, SolverWorkspace> workspaces) {
+        int size = (int) Math.round(Math.sqrt(cells.length));
+        BiFunction<int[], int[], Boolean> solver;
+        if (engine == SolverEngine.BACKTRACKING) {
+            SolverWorkspace workspace = workspaces.computeIfAbsent(size, SolverWorkspace::new);
+            workspace.setNodeLimit(SOLVE_NODE_LIMIT);
+            solver = (puzzle, solution) -> workspace.solve(puzzle, solution)
+                    ? Boolean.TRUE : workspace.isLimitReached() ? null : Boolean.FALSE;
+        } else {
+            solver = (puzzle, solution) -> engine.trySolve(puzzle, solution, SOLVE_NODE_LIMIT);
+        }
+        Boolean solved = size < MIN_CACHED_SIZE ? solver.apply(cells, cells) : cache.trySolve(cells, cells, solver);
+        out.append("\"solved\":").append(solved);
+        if (solved == Boolean.TRUE) {
+            Json.appendCells(out.append(",\"solution\":"), cells);
+        }
+        return out;
+    }
+
+    /**
+     * Validates boards: each result tells whether the board has no conflicts, is complete and is solved.
+     *
+     * @param exchange the request
+     * @param request  the parsed request body
+     * @return the number of boards validated
+     * @throws IOException if the response cannot be sent
+     */
+    private int validate(HttpExchange exchange, Map<String, Object> request) throws IOException {
+        List<int[]> puzzles = puzzlesOf(request);
+        StringBuilder response = new StringBuilder("{\"results\":[");
+        for (int i = 0; i < puzzles.size(); i++) {
+            int[] cells = puzzles.get(i);
+            SudokuBoard board = new SudokuBoard((int) Math.round(Math.sqrt(cells.length)));
+            for (int index = 0; index < cells.length; index++) {
+                board.set(index, cells[index]);
+            }
+            int conflicts = board.getConflictCount();
+            if (i > 0) {
+                response.append(',');
+            }
+            response.append("{\"valid\":").append(conflicts == 0)
+                    .append(",\"conflicts\":").append(conflicts)
+                    .append(",\"complete\":").append(board.getEmptyCellCount() == 0)
+                    .append(",\"solved\":").append(board.isSolved()).append('}');
+        }
+        sendJson(exchange, 200, response.append("]}"));
+        return puzzles.size();
+    }
+
+    /**
+     * Grades puzzles by the hardest technique needed to solve them.
+     * Each result is {@code {"technique": "NAKED_SINGLE", "score": 2.3, "steps": 45}}, with a null technique
+     * and a score of 0 when the clues contradict each other.
+     *
+     * @param exchange the request
+     * @param request  the parsed request body
+     * @return the number of puzzles graded
+     * @throws IOException if the response cannot be sent
+     */
+    private int grade(HttpExchange exchange, Map<String, Object> request) throws IOException {
+        List<int[]> puzzles = puzzlesOf(request);
+        Map<Integer, DifficultyGrader> graders = new LinkedHashMap<>(); // Per size, reused across the batch
+        StringBuilder response = new StringBuilder("{\"results\":[");
+        for (int i = 0; i < puzzles.size(); i++) {
+            int[] cells = puzzles.get(i);
+            DifficultyGrader grader = graders.computeIfAbsent((int) Math.round(Math.sqrt(cells.length)),
+                    DifficultyGrader::new);
+            DifficultyGrader.Technique technique = grader.grade(cells);
+            if (i > 0) {
+                response.append(',');
+            }
+            response.append("{\"technique\":");
+            if (technique == null) {
+                response.append("null");
+            } else {
+                Json.appendString(response, technique.name());
+            }
+            response.append(",\"score\":").append(grader.getScore())
+                    .append(",\"steps\":").append(grader.getSteps()).append('}');
+        }
+        sendJson(exchange, 200, response.append("]}"));
+        return puzzles.size();
+    }
+
+    /**
+     * Starts a live game on a generated puzzle: {@code {"size": 9, "difficulty": 1}}, every member optional.
+     * The response is {@code {"id": 42, "puzzle": [...]}}.
+     *
+     * @param exchange the request
+     * @param request  the parsed request body
+     * @return 1, the puzzle generated
+     * @throws IOException if the response cannot be sent
+     */
+    private int newGame(HttpExchange exchange, Map<String, Object> request) throws IOException {
+        int size = intMember(request, "size", 9);
+        int difficulty = intMember(request, "difficulty", 1);
+        try {
+            SudokuBoard.boxSizeFor(size);
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "Unsupported size: " + size);
+        }
+        int[][] grid = new SudokuGenerator(new GameConfig(size, difficulty, false), ThreadLocalRandom.current())
+                .getSudokuGrid();
+        long id = sessions.create(grid);
+        StringBuilder response = new StringBuilder("{\"id\":").append(id).append(",\"puzzle\":");
+        Json.appendCells(response, sessions.getCells(id));
+        sendJson(exchange, 200, response.append('}'));
+        return 1;
+    }
+
+    /**
+     * Plays a move in a live game: {@code {"id": 42, "row": 0, "col": 2, "value": 4}}.
+     *
+     * @param exchange the request
+     * @param request  the parsed request body
+     * @return 0, as no puzzle is processed
+     * @throws IOException if the response cannot be sent
+     */
+    private int move(HttpExchange exchange, Map<String, Object> request) throws IOException {
+        long id = idOf(request);
+        SessionStore.Outcome outcome = sessions.applyMove(id, intMember(request, "row", -1),
+                intMember(request, "col", -1), intMember(request, "value", -1));
+        sendGameResult(exchange, id, outcome);
+        return 0;
+    }
+
+    /**
+     * Undoes the last move of a live game: {@code {"id": 42}}.
+     *
+     * @param exchange the request
+     * @param request  the parsed request body
+     * @return 0, as no puzzle is processed
+     * @throws IOException if the response cannot be sent
+     */
+    private int undo(HttpExchange exchange, Map<String, Object> request) throws IOException {
+        long id = idOf(request);
+        sendGameResult(exchange, id, sessions.undo(id));
+        return 0;
+    }
+
+    /**
+     * Redoes the last undone move of a live game: {@code {"id": 42}}.
+     *
+     * @param exchange the request
+     * @param request  the parsed request body
+     * @return 0, as no puzzle is processed
+     * @throws IOException if the response cannot be sent
+     */
+    private int redo(HttpExchange exchange, Map<String, Object> request) throws IOException {
+        long id = idOf(request);
+        sendGameResult(exchange, id, sessions.redo(id));
+        return 0;
+    }
+
+    /**
+     * Sends the result of an action on a live game with its remaining moves and whether it is solved,
+     * or a 404 error if the game does not exist or was evicted.
+     *
+     * @param exchange the request
+     * @param id       the game id
+     * @param outcome  the outcome of the action
+     * @throws IOException if the response cannot be sent
+     */
+    private void sendGameResult(HttpExchange exchange, long id, SessionStore.Outcome outcome) throws IOException {
+        if (outcome.getResult() == SudokuEngine.Result.UNKNOWN_GAME) {
+            throw new HttpError(404, "Unknown game: " + id);
+        }
+        StringBuilder response = new StringBuilder("{\"result\":");
+        Json.appendString(response, outcome.getResult().name())
+                .append(",\"remaining\":").append(outcome.getRemainingMoves())
+                .append(",\"solved\":").append(outcome.isSolved()).append('}');
+        sendJson(exchange, 200, response);
+    }
+
+    /**
+     * Returns the game id of a request.
+     *
+     * @param request the parsed request body
+     * @return the game id
+     * @throws HttpError if the id is missing or not an integer
+     */
+    private static long idOf(Map<String, Object> request) {
+        if (request.get("id") instanceof Long id) {
+            return id;
+        }
+        throw new HttpError(400, "\"id\" must be an integer");
+    }
+
+    /**
+     * Reports the metrics of every endpoint, of the solution cache and of the live games. Latencies are in microseconds.
+     *
+     * @param exchange the request
+     * @param request  the parsed request body, unused
+     * @return 0, as no puzzle is processed
+     * @throws IOException if the response cannot be sent
+     */
+    private int metrics(HttpExchange exchange, Map<String, Object> request) throws IOException {
+        StringBuilder response = new StringBuilder("{\"endpoints\":{");
+        boolean first = true;
+        for (Endpoint endpoint : endpoints.values()) {
+            if (!first) {
+                response.append(',');
+            }
+            first = false;
+            LatencyHistogram latencies = endpoint.latencies;
+            Json.appendString(response, endpoint.path)
+                    .append(":{\"requests\":").append(latencies.getCount())
+                    .append(",\"errors\":").append(endpoint.errors.get())
+                    .append(",\"puzzles\":").append(endpoint.puzzles.get())
+                    .append(",\"mean_us\":").append(latencies.getMean() / 1000)
+                    .append(",\"p50_us\":").append(latencies.getPercentile(50) / 1000)
+                    .append(",\"p99_us\":").append(latencies.getPercentile(99) / 1000)
+                    .append(",\"p999_us\":").append(latencies.getPercentile(99.9) / 1000)
+                    .append(",\"max_us\":").append(latencies.getMax() / 1000).append('}');
+        }
+        SolutionCache cache = SolutionCache.getDefault();
+        response.append("},\"cache\":{\"hits\":").append(cache.getHits())
+                .append(",\"misses\":").append(cache.getMisses())
+                .append(",\"uncacheable\":").append(cache.getUncacheable())
+                .append("},\"sessions\":{\"live\":").append(sessions.size())
+                .append(",\"bytes\":").append(sessions.getUsedBytes())
+                .append(",\"evictions\":").append(sessions.getEvictions()).append("}}");
+        sendJson(exchange, 200, response);
+        return 0;
+    }
+
+    /**
+     * Returns the puzzles of a batch request, from its "puzzles" array or its single "puzzle".
+     *
+     * @param request the parsed request body
+     * @return the puzzles as cells in row-major order
+     * @throws HttpError if a puzzle is missing or malformed, or the batch is too large
+     */
+    private static List<int[]> puzzlesOf(Map<String, Object> request) {
+        List<Object> items;
+        if (request.get("puzzles") instanceof List<?> list) {
+            items = new ArrayList<>(list);
+        } else if (request.containsKey("puzzle")) {
+            items = new ArrayList<>();
+            items.add(request.get("puzzle"));
+        } else {
+            throw new HttpError(400, "Expected \"puzzles\" or \"puzzle\"");
+        }
+        if (items.isEmpty() || items.size() > MAX_BATCH) {
+            throw new HttpError(400, "A batch must hold between 1 and " + MAX_BATCH + " puzzles");
+        }
+        List<int[]> puzzles = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                puzzles.add(cellsOf(items.get(i)));
+            } catch (IllegalArgumentException e) {
+                throw new HttpError(400, "Puzzle " + i + ": " + e.getMessage());
+            }
+        }
+        return puzzles;
+    }
+
+    /**
+     * Converts one puzzle from its JSON form to cells.
+     *
+     * @param item a flat array of numbers, an array of rows, or a string of digits
+     * @return the cells in row-major order
+     * @throws IllegalArgumentException if the puzzle is malformed
+     */
+    private static int[] cellsOf(Object item) {
+        List<Integer> values = new ArrayList<>();
+        if (item instanceof String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '.') {
+                    values.add(0);
+                } else if (c >= '0' && c <= '9') {
+                    values.add(c - '0');
+                } else {
+                    throw new IllegalArgumentException("unexpected character '" + c + "'");
+                }
+            }
+        } else if (item instanceof List<?> list) {
+            for (Object element : list) {
+                if (element instanceof List<?> row) {
+                    for (Object value : row) {
+                        values.add(cellValueOf(value));
+                    }
+                } else {
+                    values.add(cellValueOf(element));
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("expected an array or a string");
+        }
+
+        int size = (int) Math.round(Math.sqrt(values.size()));
+        if (size * size != values.size()) {
+            throw new IllegalArgumentException(values.size() + " cells do not form a square board");
+        }
+        SudokuBoard.boxSizeFor(size); // Rejects unsupported sizes
+        int[] cells = new int[values.size()];
+        for (int i = 0; i < cells.length; i++) {
+            int value = values.get(i);
+            if (value < 0 || value > size) {
+                throw new IllegalArgumentException("value " + value + " is out of range");
+            }
+            cells[i] = value;
+        }
+        return cells;
+    }
+
+    /**
+     * Converts one cell from JSON.
+     *
+     * @param value the JSON value
+     * @return the cell value
+     * @throws IllegalArgumentException if the value is not an integer
+     */
+    private static int cellValueOf(Object value) {
+        if (value instanceof Long number && number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+            return number.intValue();
+        }
+        throw new IllegalArgumentException("cells must be integers");
+    }
+
+    /**
+     * Returns an integer member of a request.
+     *
+     * @param request      the parsed request body
+     * @param name         the member name
+     * @param defaultValue the value if the member is missing
+     * @return the value
+     * @throws HttpError if the member is not an integer
+     */
+    private static int intMember(Map<String, Object> request, String name, int defaultValue) {
+        Object value = request.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return cellValueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "\"" + name + "\" must be an integer");
+        }
+    }
+
+    /**
+     * Checks if a request asks for a streamed NDJSON response.
+     *
+     * @param exchange the request
+     * @return true if the response should be streamed
+     */
+    private static boolean isStreaming(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.equals("stream=true")) {
+                    return true;
+                }
+            }
+        }
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        return accept != null && accept.contains(NDJSON);
+    }
+
+    /**
+     * Sends a complete JSON response.
+     *
+     * @param exchange the request
+     * @param status   the HTTP status
+     * @param body     the JSON document
+     * @throws IOException if the response cannot be sent
+     */
+    private static void sendJson(HttpExchange exchange, int status, CharSequence body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a request body as a JSON object; an empty body is an empty object.
+     *
+     * @param exchange the request
+     * @return the members of the object
+     * @throws IOException if the body cannot be read
+     * @throws HttpError   if the body is too large or not a JSON object
+     */
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (body.length > MAX_BODY_BYTES) {
+            throw new HttpError(413, "Request body larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        String text = new String(body, StandardCharsets.UTF_8);
+        if (text.isBlank()) {
+            return Map.of();
+        }
+        Object value;
+        try {
+            value = Json.parse(text);
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, e.getMessage());
+        }
+        if (!(value instanceof Map<?, ?>)) {
+            throw new HttpError(400, "Expected a JSON object");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> members = (Map<String, Object>) value;
+        return members;
+    }
+
+    /**
+     * Answers a request on an endpoint.
+     */
+    private interface Handler {
+        /**
+         * Handles a request and sends the response.
+         *
+         * @param exchange the request
+         * @param request  the parsed request body
+         * @return the number of puzzles processed
+         * @throws IOException if the response cannot be sent
+         */
+        int handle(HttpExchange exchange, Map<String, Object> request) throws IOException;
+    }
+
+    /**
+     * An error answered with an HTTP status and a JSON message.
+     */
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        /**
+         * Constructs a new HttpError object.
+         *
+         * @param status  the HTTP status
+         * @param message the message sent to the client
+         */
+        private HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * An endpoint with its handler and metrics.
+     */
+    private static final class Endpoint {
+        private final String path;
+        private final String method;
+        private final Handler handler;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong puzzles = new AtomicLong();
+
+        /**
+         * Constructs a new Endpoint object.
+         *
+         * @param path    the path of the endpoint
+         * @param method  the HTTP method it accepts
+         * @param handler the code that answers a request
+         */
+        private Endpoint(String path, String method, Handler handler) {
+            this.path = path;
+            this.method = method;
+            this.handler = handler;
+        }
+
+        /**
+         * Checks the path and method, runs the handler, answers errors as JSON and records the metrics.
+         *
+         * @param exchange the request
+         */
+        private void handle(HttpExchange exchange) {
+            long start = System.nanoTime();
+            try {
+                if (!exchange.getRequestURI().getPath().equals(path)) {
+                    throw new HttpError(404, "Not found");
+                }
+                if (!exchange.getRequestMethod().equals(method)) {
+                    exchange.getResponseHeaders().set("Allow", method);
+                    throw new HttpError(405, "Use " + method);
+                }
+                puzzles.addAndGet(handler.handle(exchange, readBody(exchange)));
+            } catch (HttpError e) {
+                errors.incrementAndGet();
+                sendError(exchange, e.status, e.getMessage());
+            } catch (IOException e) {
+                errors.incrementAndGet(); // The client went away; nothing more can be sent
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+                sendError(exchange, 500, String.valueOf(e));
+            } finally {
+                exchange.close();
+                latencies.record(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Sends an error response if no response has been started.
+         *
+         * @param exchange the request
+         * @param status   the HTTP status
+         * @param message  the message
+         */
+        private static void sendError(HttpExchange exchange, int status, String message) {
+            if (exchange.getResponseCode() != -1) {
+                return; // Headers already sent
+            }
+            try {
+                sendJson(exchange, status, Json.appendString(new StringBuilder("{\"error\":"), message).append('}'));
+            } catch (IOException e) {
+                // The client went away
+            }
+        }
+    }
+}
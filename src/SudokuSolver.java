@@ -1,105 +1,212 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Represents a Sudoku solver that can solve a given Sudoku puzzle.
  */
-public class SudokuSolver {
+public class SudokuSolver implements PuzzleSolver {
+    /**
+     * The order in which the search picks the next empty cell to branch on.
+     */
+    public enum SearchOrder {
+        /**
+         * Visit the empty cells in row-major order.
+         */
+        ROW_MAJOR,
+
+        /**
+         * Branch on the empty cell with the fewest candidates, breaking ties by the most empty peers.
+         */
+        MINIMUM_REMAINING_VALUES
+    }
+
     final private int[][] board;
     final private int size;
+    final private CandidateMasks masks;
+    final private SearchOrder searchOrder;
+    final private int[] emptyCells;
+    private int emptyCount;
+    private CandidateCountIndex countIndex;
+    private long nodeCount;
+    private long backtrackCount;
+    private AtomicBoolean stopFlag;
+    private long nodeLimit = Long.MAX_VALUE;
+    private boolean stopped;
     /**
      * Constructs a new SudokuSolver object with a given Sudoku puzzle board.
      *
      * @param board the Sudoku puzzle board
      */
     public SudokuSolver(int[][] board) {
+        this(board, SearchOrder.MINIMUM_REMAINING_VALUES);
+    }
+    /**
+     * Constructs a new SudokuSolver object with a given Sudoku puzzle board and search order.
+     *
+     * @param board       the Sudoku puzzle board
+     * @param searchOrder the order in which empty cells are branched on
+     */
+    public SudokuSolver(int[][] board, SearchOrder searchOrder) {
         this.board = board;
         this.size = board.length;
+        this.masks = new CandidateMasks(board);
+        this.searchOrder = searchOrder;
+        this.emptyCells = new int[size * size];
     }
     /**
      * Solves the Sudoku puzzle and returns the solved board.
+     * Forced cells are filled by constraint propagation first, and only the remaining cells are searched.
      *
      * @return the solved Sudoku puzzle board, or null if no solution exists
      */
+    @Override
     public int[][] solve() {
-        if (solveSudoku()) {
+        nodeCount = 0;
+        backtrackCount = 0;
+        stopped = false;
+        if (!masks.isConsistent() || !new ConstraintPropagator(board, masks).propagate()) {
+            return null;
+        }
+        boolean solved;
+        if (searchOrder == SearchOrder.MINIMUM_REMAINING_VALUES) {
+            countIndex = new CandidateCountIndex(board, masks);
+            solved = solveMostConstrained();
+        } else {
+            emptyCount = 0;
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    if (board[row][col] == 0) {
+                        emptyCells[emptyCount++] = row * size + col;
+                    }
+                }
+            }
+            solved = solveSudoku(0);
+        }
+        if (solved) {
             return board;
         } else {
-            System.out.println("No solution exists for the given Sudoku puzzle.");
             return null;
         }
     }
+
     /**
-     * Recursive helper method for solving the Sudoku puzzle.
+     * Sets a flag that, once raised by another thread, makes the search give up and return null.
+     * The flag is polled every few hundred nodes so checking it stays off the hot path.
      *
-     * @return true if the puzzle is solved, false otherwise
+     * @param stopFlag the shared cancellation flag
      */
-    private boolean solveSudoku() {
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
-                if (board[row][col] == 0) {
-                    for (int num = 1; num <= size; num++) {
-                        if (isValidMove(row, col, num)) {
-                            board[row][col] = num;
-                            if (solveSudoku()) {
-                                return true;
-                            }
-                            board[row][col] = 0; // Backtrack
-                        }
-                    }
-                    return false; // No valid number found for this cell
-                }
-            }
-        }
-        return true; // Puzzle solved
+    public void setStopFlag(AtomicBoolean stopFlag) {
+        this.stopFlag = stopFlag;
     }
     /**
-     * Checks if a given number is valid in a given position.
+     * Sets the number of search nodes after which the search gives up and returns null.
+     * The limit is checked every few hundred nodes, so the search may run slightly past it.
      *
-     * @param row the row
-     * @param col the column
-     * @param num the number to check
-     * @return true if the number is valid, false otherwise
+     * @param nodeLimit the maximum number of search nodes
      */
-    private boolean isValidMove(int row, int col, int num) {
-        return isRowValid(row, num) && isColValid(col, num) && isSubgridValid(row, col, num);
+    @Override
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
     }
     /**
-     * Checks if a given number is valid in a given row.
+     * Returns whether the last call to {@link #solve()} gave up because it ran out of nodes.
      *
-     * @param row the row
-     * @param num the number to check
-     * @return true if the number is valid, false otherwise
+     * @return true if the node limit was reached, false otherwise
      */
-    private boolean isRowValid(int row, int num) {
-        for (int col = 0; col < size; col++) {
-            if (board[row][col] == num) {
-                return false;
+    @Override
+    public boolean isLimitReached() {
+        return stopped && nodeCount > nodeLimit;
+    }
+    /**
+     * Returns the number of search nodes visited by the last call to {@link #solve()}.
+     *
+     * @return the number of search nodes
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+    /**
+     * Returns the number of placements undone by the last call to {@link #solve()}.
+     *
+     * @return the number of backtracks
+     */
+    public long getBacktrackCount() {
+        return backtrackCount;
+    }
+    /**
+     * Recursive helper method for solving the Sudoku puzzle in row-major order.
+     * Empty cells are visited in the order they were collected, so no call rescans the board.
+     *
+     * @param index the position of the next cell to fill in the list of empty cells
+     * @return true if the puzzle is solved, false otherwise
+     */
+    private boolean solveSudoku(int index) {
+        if (isStopped()) {
+            return false;
+        }
+        if (index == emptyCount) {
+            return true; // Puzzle solved
+        }
+        int row = emptyCells[index] / size;
+        int col = emptyCells[index] % size;
+        long candidates = masks.getCandidates(row, col);
+        while (candidates != 0) {
+            long bit = Long.lowestOneBit(candidates);
+            candidates ^= bit;
+            int num = Long.numberOfTrailingZeros(bit) + 1;
+            board[row][col] = num;
+            masks.place(row, col, num);
+            if (solveSudoku(index + 1)) {
+                return true;
             }
+            masks.remove(row, col, num); // Backtrack
+            board[row][col] = 0;
+            backtrackCount++;
         }
-        return true;
+        return false; // No valid number found for this cell
     }
     /**
-     * Checks if a given number is valid in a given column.
+     * Recursive helper method for solving the Sudoku puzzle, always branching on the most constrained cell.
      *
-     * @param col the row
-     * @param num the number to check
-     * @return true if the number is valid, false otherwise
+     * @return true if the puzzle is solved, false otherwise
      */
-    private boolean isColValid(int col, int num) {
-        for (int row = 0; row < size; row++) {
-            if (board[row][col] == num) {
-                return false;
+    private boolean solveMostConstrained() {
+        if (isStopped()) {
+            return false;
+        }
+        int cell = countIndex.selectCell();
+        if (cell == CandidateCountIndex.SOLVED) {
+            return true; // Puzzle solved
+        }
+        if (cell == CandidateCountIndex.DEAD_END) {
+            return false;
+        }
+        int row = cell / size;
+        int col = cell % size;
+        long candidates = masks.getCandidates(row, col);
+        while (candidates != 0) {
+            long bit = Long.lowestOneBit(candidates);
+            candidates ^= bit;
+            int num = Long.numberOfTrailingZeros(bit) + 1;
+            board[row][col] = num;
+            countIndex.place(cell, num);
+            if (solveMostConstrained()) {
+                return true;
             }
+            countIndex.undo(cell, num); // Backtrack
+            board[row][col] = 0;
+            backtrackCount++;
         }
-        return true;
+        return false; // No valid number found for this cell
     }
     /**
-     * Checks if a given number is valid in a given subgrid.
+     * Counts a search node and checks whether the search has been cancelled or has run out of nodes.
      *
-     * @param row the row
-     * @param col the column
-     * @param num the number to check
-     * @return true if the number is valid, false otherwise
+     * @return true if the search should give up, false otherwise
      */
-    private boolean isSubgridValid(int row, int col, int num) {
-        return SudokuGenerator.getSubgridSize(row, col, num, size, board);
+    private boolean isStopped() {
+        if ((++nodeCount & 0xFF) == 0 && (nodeCount > nodeLimit || stopFlag != null && stopFlag.get())) {
+            stopped = true;
+        }
+        return stopped;
     }
 }
@@ -0,0 +1,363 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Draws Sudoku boards on an ANSI terminal.
+ * Every frame is built in one reusable byte buffer and handed to the output stream in a single write,
+ * instead of one synchronized print call per cell. In diff mode the board is drawn once at the top of the
+ * screen and later frames only rewrite the cells that changed, addressed with cursor-positioning escapes,
+ * so stepping through a replay sends a few bytes per move instead of the whole board.
+ * A renderer is not thread-safe.
+ */
+public class TerminalRenderer {
+    private static final byte[] BLUE = "\u001B[34m".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GREEN = "\u001B[32m".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RESET = "\u001B[0m".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLEAR_SCREEN = "\u001B[H\u001B[2J".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLEAR_LINE = "\u001B[2K".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLEAR_BELOW = "\u001B[J".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte STYLE_BLANK = 0; // Empty cell shown as spaces
+    private static final byte STYLE_GENERATED = 1; // Pre-filled cell, blue
+    private static final byte STYLE_USER = 2; // Cell filled by the player, green
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int length;
+
+    // The frame on screen in diff mode; shownSize is 0 until a frame has been drawn
+    private int shownSize;
+    private int[] shownValues;
+    private byte[] shownStyles;
+    private String shownCaption;
+
+    /**
+     * Constructs a new TerminalRenderer object writing to a stream.
+     *
+     * @param out the stream to write frames to, e.g. System.out
+     */
+    public TerminalRenderer(OutputStream out) {
+        this.out = out;
+        this.buffer = new byte[4096];
+    }
+
+    /**
+     * Draws a board below the current output, showing generated cells in blue, the player's cells in green
+     * and empty cells as blanks.
+     *
+     * @param board          the board to draw
+     * @param generatedCells which cells were generated (pre-filled)
+     */
+    public void render(SudokuBoard board, boolean[][] generatedCells) {
+        int size = board.getSize();
+        length = 0;
+        appendFrame(size, index -> board.get(index),
+                index -> generatedCells[index / size][index % size] ? STYLE_GENERATED
+                        : board.get(index) == 0 ? STYLE_BLANK : STYLE_USER);
+        flush();
+    }
+
+    /**
+     * Draws a loaded board below the current output, showing filled cells in blue and empty cells as a green 0.
+     *
+     * @param grid the board to draw
+     */
+    public void render(int[][] grid) {
+        int size = grid.length;
+        length = 0;
+        appendFrame(size, index -> grid[index / size][index % size],
+                index -> grid[index / size][index % size] == 0 ? STYLE_USER : STYLE_GENERATED);
+        flush();
+    }
+
+    /**
+     * Draws a board with a caption at the top of the screen, redrawing only what changed since the last call.
+     * The first call, or a call with a board of another size, clears the screen and draws the whole frame.
+     * Either way the cursor is left on the line below the board, with the rest of the screen cleared.
+     *
+     * @param caption        the line shown above the board
+     * @param board          the board to draw
+     * @param generatedCells which cells were generated (pre-filled)
+     */
+    public void renderDiff(String caption, SudokuBoard board, boolean[][] generatedCells) {
+        int size = board.getSize();
+        int boxSize = board.getBoxSize();
+        length = 0;
+        if (shownSize != size) {
+            append(CLEAR_SCREEN);
+            append(caption);
+            append(NEWLINE);
+            appendFrame(size, index -> board.get(index),
+                    index -> styleOf(board, generatedCells, index));
+            shownSize = size;
+            shownValues = new int[size * size];
+            shownStyles = new byte[size * size];
+            for (int index = 0; index < size * size; index++) {
+                shownValues[index] = board.get(index);
+                shownStyles[index] = styleOf(board, generatedCells, index);
+            }
+            shownCaption = caption;
+            flush();
+            return;
+        }
+
+        int width = widthOf(size);
+        if (!caption.equals(shownCaption)) {
+            appendCursorPosition(1, 1);
+            append(CLEAR_LINE);
+            append(caption);
+            shownCaption = caption;
+        }
+        for (int index = 0; index < size * size; index++) {
+            int value = board.get(index);
+            byte style = styleOf(board, generatedCells, index);
+            if (value == shownValues[index] && style == shownStyles[index]) {
+                continue;
+            }
+            int row = index / size;
+            int col = index % size;
+            // Screen lines: caption, column numbers, separator, then board rows with a separator after each band
+            appendCursorPosition(4 + row + row / boxSize, 1 + (width + 1) * (col + 1) + (col / boxSize) * 2);
+            appendCell(value, style, width);
+            shownValues[index] = value;
+            shownStyles[index] = style;
+        }
+        appendCursorPosition(2 + frameHeight(size, boxSize), 1);
+        append(CLEAR_BELOW);
+        flush();
+    }
+
+    /**
+     * Forgets the frame on screen, so the next diff render redraws everything.
+     * Call this after printing anything over the board.
+     */
+    public void invalidate() {
+        shownSize = 0;
+    }
+
+    /**
+     * Returns the style of a board cell.
+     *
+     * @param board          the board
+     * @param generatedCells which cells were generated
+     * @param index          the index of the cell
+     * @return the style
+     */
+    private static byte styleOf(SudokuBoard board, boolean[][] generatedCells, int index) {
+        int size = board.getSize();
+        if (generatedCells[index / size][index % size]) {
+            return STYLE_GENERATED;
+        }
+        return board.get(index) == 0 ? STYLE_BLANK : STYLE_USER;
+    }
+
+    /**
+     * Appends a whole board in the layout of the game: column numbers, a separator line, then numbered rows
+     * with separators between subgrids.
+     *
+     * @param size   the size of the board
+     * @param values the value of each cell by index
+     * @param styles the style of each cell by index
+     */
+    private void appendFrame(int size, CellFunction values, CellFunction styles) {
+        int boxSize = SudokuBoard.boxSizeFor(size);
+        int width = widthOf(size);
+
+        // Column numbers
+        appendRepeated(' ', width + 1);
+        for (int col = 0; col < size; col++) {
+            appendNumber(col, width);
+            append(' ');
+            if ((col + 1) % boxSize == 0 && col < size - 1) {
+                append(' ');
+            }
+        }
+        append(NEWLINE);
+
+        int lineStart = length;
+        appendRepeated(' ', width);
+        appendRepeated('-', size * (width + 1) + (boxSize - 1) * 2);
+        append(NEWLINE);
+        int lineLength = length - lineStart;
+
+        for (int row = 0; row < size; row++) {
+            appendNumber(row, width);
+            append('|');
+            for (int col = 0; col < size; col++) {
+                int index = row * size + col;
+                appendCell(values.apply(index), (byte) styles.apply(index), width);
+                if ((col + 1) % boxSize == 0 && col < size - 1) {
+                    append('|');
+                    append(' ');
+                }
+            }
+            append(NEWLINE);
+            if ((row + 1) % boxSize == 0 && row < size - 1) {
+                ensureCapacity(lineLength);
+                System.arraycopy(buffer, lineStart, buffer, length, lineLength); // Same separator line again
+                length += lineLength;
+            }
+        }
+    }
+
+    /**
+     * Appends one cell: its value padded to the width and a space, colored by its style.
+     *
+     * @param value the value of the cell
+     * @param style the style of the cell
+     * @param width the number of digits of the largest value
+     */
+    private void appendCell(int value, byte style, int width) {
+        if (style == STYLE_BLANK) {
+            appendRepeated(' ', width + 1);
+            return;
+        }
+        append(style == STYLE_GENERATED ? BLUE : GREEN);
+        appendNumber(value, width);
+        append(' ');
+        append(RESET);
+    }
+
+    /**
+     * Appends the escape that moves the cursor to a screen position.
+     *
+     * @param line   the screen line, from 1
+     * @param column the screen column, from 1
+     */
+    private void appendCursorPosition(int line, int column) {
+        append('\u001B');
+        append('[');
+        appendNumber(line, 0);
+        append(';');
+        appendNumber(column, 0);
+        append('H');
+    }
+
+    /**
+     * Appends a non-negative number right-aligned in a field.
+     *
+     * @param value the number
+     * @param width the field width; 0 for no padding
+     */
+    private void appendNumber(int value, int width) {
+        int digits = widthOf(value);
+        appendRepeated(' ', width - digits);
+        ensureCapacity(digits);
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[length + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    /**
+     * Appends a character a number of times.
+     *
+     * @param c     the character
+     * @param count the number of times, may be zero or negative
+     */
+    private void appendRepeated(char c, int count) {
+        if (count <= 0) {
+            return;
+        }
+        ensureCapacity(count);
+        Arrays.fill(buffer, length, length + count, (byte) c);
+        length += count;
+    }
+
+    /**
+     * Appends an ASCII character.
+     *
+     * @param c the character
+     */
+    private void append(char c) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) c;
+    }
+
+    /**
+     * Appends bytes.
+     *
+     * @param bytes the bytes
+     */
+    private void append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    /**
+     * Appends a string in UTF-8.
+     *
+     * @param text the string
+     */
+    private void append(String text) {
+        append(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Grows the buffer if fewer than a given number of bytes are free.
+     *
+     * @param bytes the number of bytes about to be appended
+     */
+    private void ensureCapacity(int bytes) {
+        if (length + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes));
+        }
+    }
+
+    /**
+     * Writes the frame in one call and flushes the stream.
+     */
+    private void flush() {
+        try {
+            out.write(buffer, 0, length);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the number of lines of a drawn board: the column numbers, the separator lines and the rows.
+     *
+     * @param size    the size of the board
+     * @param boxSize the size of a subgrid
+     * @return the number of lines
+     */
+    private static int frameHeight(int size, int boxSize) {
+        return 2 + size + (boxSize - 1);
+    }
+
+    /**
+     * Returns the number of decimal digits of a non-negative number.
+     *
+     * @param value the number
+     * @return the number of digits, at least 1
+     */
+    private static int widthOf(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Gives a value for each cell index.
+     */
+    private interface CellFunction {
+        /**
+         * Returns the value for a cell.
+         *
+         * @param index the index of the cell
+         * @return the value
+         */
+        int apply(int index);
+    }
+}